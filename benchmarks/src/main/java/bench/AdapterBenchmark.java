@@ -0,0 +1,93 @@
+package bench;
+
+import adapter.AdapterType;
+import executer.AbstractExecutor;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfer of 1 MB input between two executors through every adapter type.
+ * Executors only copy data, so time is spent in adapters and transfer()
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AdapterBenchmark {
+  private static final int inputSize = 1 << 20;
+
+  @Param({"BYTE", "BYTE_ARRAY", "BYTE_BLOCK", "DOUBLE", "DOUBLE_ARRAY", "DOUBLE_BLOCK"})
+  AdapterType type;
+
+  @Param({"4096", "65536"})
+  int block;
+
+  private CopyExecutor provider;
+  private BenchData.MemoryInput input;
+
+  /**
+   * Executor copying its input, bytes are widened to doubles if output is double
+   */
+  static class CopyExecutor extends AbstractExecutor {
+    private final boolean doublesOut;
+
+    /**
+     * Copy executor constructor
+     * @param readable: readable type, null for reading conveyor input
+     * @param writable: writable type
+     * @param blockSize
+     */
+    CopyExecutor(AdapterType readable, AdapterType writable, int blockSize) {
+      this.blockSize = blockSize;
+      readableTypes.add(readable == null ? AdapterType.BYTE_ARRAY : readable);
+      writableTypes.add(writable);
+      doublesOut = writable.name().startsWith("DOUBLE");
+    }
+
+    @Override
+    public Object code(Object data) {
+      dataOutLen = dataLen;
+      if (doublesOut) {
+        double[] out = outputDoubles(dataLen);
+        if (data instanceof DoubleBuffer) {
+          ((DoubleBuffer) data).duplicate().get(out, 0, dataLen);
+        } else {
+          ByteBuffer bytes = (ByteBuffer) data;
+          for (int i = 0; i < dataLen; i++)
+            out[i] = bytes.get(i);
+        }
+        return out;
+      }
+      byte[] out = outputBytes(dataLen);
+      ((ByteBuffer) data).duplicate().get(out, 0, dataLen);
+      return out;
+    }
+
+    @Override
+    public void setConfigFile(String configFile) {
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    input = new BenchData.MemoryInput(BenchData.generate(BenchData.Skew.BASE64, inputSize));
+    provider = new CopyExecutor(null, type, block);
+    provider.setInput(input);
+    CopyExecutor consumer = new CopyExecutor(type, type.name().startsWith("DOUBLE") ? AdapterType.DOUBLE_ARRAY
+        : AdapterType.BYTE_ARRAY, block);
+    consumer.setOutput(BenchData.nullOutput());
+    provider.setConsumer(consumer);
+  }
+
+  @Benchmark
+  public void transfer() throws IOException {
+    input.reset();
+    provider.run();
+  }
+}
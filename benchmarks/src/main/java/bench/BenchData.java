@@ -0,0 +1,136 @@
+package bench;
+
+import io.BlockInput;
+import io.ChannelOutput;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Inputs and outputs shared by benchmarks
+ */
+public final class BenchData {
+  /**
+   * Distribution of letters in generated input
+   */
+  public enum Skew {
+    UNIFORM,   // all 256 letters
+    BASE64,    // 64 letters, equally probable
+    GEOMETRIC  // 16 letters, letter k has probability 2^-(k+1)
+  }
+
+  private BenchData() {
+  }
+
+  /**
+   * Generate input with fixed seed
+   * @param skew
+   * @param len
+   * @return byte[]: input
+   */
+  public static byte[] generate(Skew skew, int len) {
+    String base64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+    Random random = new Random(42);
+    byte[] data = new byte[len];
+    for (int i = 0; i < len; i++) {
+      switch (skew) {
+        case UNIFORM: {
+          data[i] = (byte) random.nextInt(256);
+          break;
+        }
+        case BASE64: {
+          data[i] = (byte) base64.charAt(random.nextInt(64));
+          break;
+        }
+        case GEOMETRIC: {
+          int k = Math.min(Long.numberOfTrailingZeros(random.nextLong() | (1L << 15)), 15);
+          data[i] = (byte) ('a' + k);
+          break;
+        }
+      }
+    }
+    return data;
+  }
+
+  /**
+   * Write data to temporary file
+   * @param dir
+   * @param name
+   * @param data
+   * @return String: file name
+   * @throws IOException
+   */
+  public static String writeFile(Path dir, String name, byte[] data) throws IOException {
+    return Files.write(dir.resolve(name), data).toString();
+  }
+
+  /**
+   * Write text to temporary file
+   * @param dir
+   * @param name
+   * @param text
+   * @return String: file name
+   * @throws IOException
+   */
+  public static String writeFile(Path dir, String name, String text) throws IOException {
+    return writeFile(dir, name, text.getBytes("UTF-8"));
+  }
+
+  /**
+   * Output dropping all data
+   * @return ChannelOutput: output
+   */
+  public static ChannelOutput nullOutput() {
+    return new ChannelOutput(new WritableByteChannel() {
+      @Override
+      public int write(ByteBuffer src) {
+        int n = src.remaining();
+        src.position(src.limit());
+        return n;
+      }
+
+      @Override
+      public boolean isOpen() {
+        return true;
+      }
+
+      @Override
+      public void close() {
+      }
+    });
+  }
+
+  /**
+   * Input from array, can be read again after reset()
+   */
+  public static final class MemoryInput implements BlockInput {
+    private final ByteBuffer data;
+
+    public MemoryInput(byte[] data) {
+      this.data = ByteBuffer.wrap(data);
+    }
+
+    public void reset() {
+      data.clear();
+    }
+
+    @Override
+    public ByteBuffer nextBlock(int maxLen) {
+      if (!data.hasRemaining())
+        return null;
+      int len = Math.min(maxLen, data.remaining());
+      ByteBuffer block = data.slice();
+      block.limit(len);
+      data.position(data.position() + len);
+      return block;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks jar: usual JMH command line, GC profiler is always added
+ * so allocation rate is reported next to ops/s
+ */
+public class BenchmarkRunner {
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    CommandLineOptions cmdOptions = new CommandLineOptions(args);
+    new Runner(new OptionsBuilder().parent(cmdOptions).addProfiler(GCProfiler.class).build()).run();
+  }
+}
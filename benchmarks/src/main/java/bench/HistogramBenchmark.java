@@ -0,0 +1,72 @@
+package bench;
+
+import encoder.Histogram;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Letter counting used by countProb of coders
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistogramBenchmark {
+  @Param({"1048576", "33554432"})
+  int size;
+
+  @Param({"1", "4"})
+  int threads;
+
+  private Path dir;
+  private String file;
+  private byte[] data;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("histogram-bench");
+    data = BenchData.generate(BenchData.Skew.BASE64, size);
+    file = BenchData.writeFile(dir, "input", data);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.delete(dir.resolve("input"));
+    Files.delete(dir);
+  }
+
+  /**
+   * Whole countProb pass: mapped file read and count
+   */
+  @Benchmark
+  public long[] countFile() throws IOException {
+    return Histogram.countFile(file, threads);
+  }
+
+  /**
+   * Counting kernel on array in memory, vector kernel if fork runs with
+   * -jvmArgsAppend --add-modules=jdk.incubator.vector
+   */
+  @Benchmark
+  public long[] countArray() {
+    long[][] tables = new long[4][256];
+    Histogram.count(data, 0, data.length, tables);
+    return Histogram.merge(tables);
+  }
+
+  /**
+   * Scalar counting kernel on array in memory
+   */
+  @Benchmark
+  public long[] countArrayScalar() {
+    long[][] tables = new long[4][256];
+    Histogram.countScalar(data, 0, data.length, tables);
+    return Histogram.merge(tables);
+  }
+}
@@ -0,0 +1,96 @@
+package encoder;
+
+import bench.BenchData;
+import io.ChannelOutput;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arithmetic coder hot paths: encoding and decoding of 1 MB input per operation
+ * and building of segments. Lives in package encoder to reach defineSegments()
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncoderBenchmark {
+  private static final int inputSize = 1 << 20;
+
+  @Param({"2", "4", "8"})
+  int num;
+
+  @Param({"4096", "65536"})
+  int block;
+
+  @Param({"UNIFORM", "BASE64", "GEOMETRIC"})
+  BenchData.Skew skew;
+
+  private Path dir;
+  private Encoder encoder, decoder;
+  private BenchData.MemoryInput encoderInput, decoderInput;
+  private ChannelOutput output;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("encoder-bench");
+    byte[] data = BenchData.generate(skew, inputSize);
+    String inputFile = BenchData.writeFile(dir, "input", data);
+    String table = dir.resolve("table").toString();
+    String encConf = BenchData.writeFile(dir, "enc", "target encode\nblock " + block + "\nnum " + num
+        + "\ntable " + table + "\ntable_method write\n");
+    String decConf = BenchData.writeFile(dir, "dec", "target decode\nblock " + block + "\nnum " + num
+        + "\ntable " + table + "\ntable_method read\n");
+
+    output = BenchData.nullOutput();
+    encoder = new Encoder(inputFile);
+    encoder.setConfigFile(encConf);
+    encoderInput = new BenchData.MemoryInput(data);
+    encoder.setInput(encoderInput);
+
+    // encoded input of decoder
+    ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+    ChannelOutput encodedOutput = new ChannelOutput(Channels.newChannel(encoded));
+    encoder.setOutput(encodedOutput);
+    encoder.run();
+    encodedOutput.flush();
+    encoder.setOutput(output);
+
+    decoder = new Encoder(inputFile);
+    decoder.setConfigFile(decConf);
+    decoderInput = new BenchData.MemoryInput(encoded.toByteArray());
+    decoder.setInput(decoderInput);
+    decoder.setOutput(output);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    for (String name : new String[] {"input", "table", "enc", "dec"})
+      Files.deleteIfExists(dir.resolve(name));
+    Files.delete(dir);
+  }
+
+  @Benchmark
+  public void encode() throws IOException {
+    encoderInput.reset();
+    encoder.run();
+  }
+
+  @Benchmark
+  public void decode() throws IOException {
+    decoderInput.reset();
+    decoder.run();
+  }
+
+  @Benchmark
+  public void defineSegments() {
+    decoder.defineSegments();
+  }
+}
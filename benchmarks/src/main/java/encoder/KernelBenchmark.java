@@ -0,0 +1,69 @@
+package encoder;
+
+import bench.BenchData;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Interval narrowing of arithmetic encoder on 1 MB block in direct memory: vector kernel against scalar loop.
+ * Vector kernel runs only if fork runs with -jvmArgsAppend --add-modules=jdk.incubator.vector
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KernelBenchmark {
+  private static final int inputSize = 1 << 20;
+
+  @Param({"2", "4", "8"})
+  int num;
+
+  @Param({"UNIFORM", "BASE64", "GEOMETRIC"})
+  BenchData.Skew skew;
+
+  private ByteBuffer data;
+  private int sequences;
+  private double[] probability, out;
+  private Segments segs;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    byte[] bytes = BenchData.generate(skew, inputSize);
+    long[][] tables = new long[4][256];
+    Histogram.countScalar(bytes, 0, bytes.length, tables);
+    long[] counts = Histogram.merge(tables);
+    probability = new double[256];
+    for (int i = 0; i < 256; i++)
+      probability[i] = (double) counts[i] / bytes.length;
+    segs = new Segments(probability);
+    // read-only direct buffer, as slices of mapped input file
+    data = ByteBuffer.allocateDirect(inputSize).put(bytes).asReadOnlyBuffer();
+    data.clear();
+    sequences = (inputSize + num - 1) / num;
+    out = new double[sequences];
+  }
+
+  /**
+   * Vector kernel, scalar loop codes the rest. Without vector kernels it is scalar loop alone
+   */
+  @Benchmark
+  public double[] encodeKernel() {
+    Kernels.Vector kernels = Kernels.vector();
+    int from = kernels == null ? 0 : kernels.encode(data, inputSize, num, segs, probability, out, 0, sequences);
+    Encoder.encodeScalar(data, inputSize, num, segs, probability, out, from, sequences);
+    return out;
+  }
+
+  /**
+   * Scalar loop of encodeRange
+   */
+  @Benchmark
+  public double[] encodeScalar() {
+    Encoder.encodeScalar(data, inputSize, num, segs, probability, out, 0, sequences);
+    return out;
+  }
+}
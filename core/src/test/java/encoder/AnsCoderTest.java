@@ -0,0 +1,49 @@
+package encoder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import transporter.Conveyors;
+
+import static transporter.Conveyors.executor;
+import static transporter.Conveyors.text;
+
+/**
+ * Round trips of tANS coder, lengths of inputs are not multiples of its 4 interleaved states
+ */
+class AnsCoderTest {
+  @TempDir
+  Path dir;
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 6, Conveyors.multiBlock})
+  void textTable(int size) throws IOException {
+    Conveyors conveyors = new Conveyors(dir);
+    String table = "table " + conveyors.path("table.txt");
+    conveyors.assertRoundTrip(text(size),
+        executor("tans", "encode", table, "table_method write"),
+        executor("tans", "decode", table, "table_method read"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, Conveyors.multiBlock})
+  void binaryTable(int size) throws IOException {
+    Conveyors conveyors = new Conveyors(dir);
+    String table = "table " + conveyors.path("table.bin");
+    conveyors.assertRoundTrip(text(size),
+        executor("tans", "encode", table, "table_format binary", "table_log 9", "table_method write"),
+        executor("tans", "decode", table, "table_format binary", "table_log 9", "table_method read"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, Conveyors.multiBlock})
+  void embeddedHeader(int size) throws IOException {
+    Conveyors conveyors = new Conveyors(dir);
+    conveyors.assertRoundTrip(text(size),
+        executor("tans", "encode", "table " + conveyors.path("table.txt"), "header embed", "table_method write"),
+        executor("tans", "decode", "table_method header"));
+  }
+}
@@ -0,0 +1,73 @@
+package encoder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import transporter.Conveyors;
+
+import static transporter.Conveyors.executor;
+import static transporter.Conveyors.text;
+
+/**
+ * Round trips of range coder with static, adaptive and context models
+ */
+class RangeCoderTest {
+  @TempDir
+  Path dir;
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, Conveyors.multiBlock})
+  void textTable(int size) throws IOException {
+    Conveyors conveyors = new Conveyors(dir);
+    String table = "table " + conveyors.path("table.txt");
+    conveyors.assertRoundTrip(text(size),
+        executor("range", "encode", table, "table_method write"),
+        executor("range", "decode", table, "table_method read"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, Conveyors.multiBlock})
+  void binaryTable(int size) throws IOException {
+    Conveyors conveyors = new Conveyors(dir);
+    String table = "table " + conveyors.path("table.bin");
+    conveyors.assertRoundTrip(text(size),
+        executor("range", "encode", table, "table_format binary", "table_method write"),
+        executor("range", "decode", table, "table_format binary", "table_method read"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, Conveyors.multiBlock})
+  void embeddedHeader(int size) throws IOException {
+    Conveyors conveyors = new Conveyors(dir);
+    conveyors.assertRoundTrip(text(size),
+        executor("range", "encode", "table " + conveyors.path("table.txt"), "header embed", "table_method write"),
+        executor("range", "decode", "table_method header"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, Conveyors.multiBlock})
+  void adaptive(int size) throws IOException {
+    new Conveyors(dir).assertRoundTrip(text(size),
+        executor("range", "encode", "table_method adaptive"),
+        executor("range", "decode", "table_method adaptive"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, Conveyors.multiBlock})
+  void context(int size) throws IOException {
+    new Conveyors(dir).assertRoundTrip(text(size),
+        executor("range", "encode", "table_method context"),
+        executor("range", "decode", "table_method context"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, Conveyors.multiBlock})
+  void contextOrderOne(int size) throws IOException {
+    new Conveyors(dir).assertRoundTrip(text(size),
+        executor("range", "encode", "order 1", "table_method context"),
+        executor("range", "decode", "order 1", "table_method context"));
+  }
+}
@@ -0,0 +1,41 @@
+package transform;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import transporter.Conveyors;
+
+import static transporter.Conveyors.executor;
+import static transporter.Conveyors.text;
+
+/**
+ * Round trips of move-to-front transform
+ */
+class MoveToFrontTest {
+  @TempDir
+  Path dir;
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, Conveyors.multiBlock})
+  void skewedText(int size) throws IOException {
+    new Conveyors(dir).assertRoundTrip(text(size), executor("mtf", "encode"), executor("mtf", "decode"));
+  }
+
+  @Test
+  void allLetters() throws IOException {
+    byte[] data = new byte[Conveyors.multiBlock];
+    for (int i = 0; i < data.length; i++)
+      data[i] = (byte) (i * 7 + i / 256);
+    new Conveyors(dir).assertRoundTrip(data, executor("mtf", "encode"), executor("mtf", "decode"));
+  }
+
+  @Test
+  void decoderBlock() throws IOException {
+    new Conveyors(dir).assertRoundTrip(text(Conveyors.multiBlock),
+        executor("mtf", "encode"), executor("mtf", "decode", "block 7"));
+  }
+}
@@ -0,0 +1,43 @@
+package transform;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import transporter.Conveyors;
+
+import static transporter.Conveyors.executor;
+import static transporter.Conveyors.text;
+
+/**
+ * Round trips of run-length coder, runs cross borders of blocks
+ */
+class RunLengthCoderTest {
+  @TempDir
+  Path dir;
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, Conveyors.multiBlock})
+  void skewedText(int size) throws IOException {
+    new Conveyors(dir).assertRoundTrip(text(size), executor("rle", "encode"), executor("rle", "decode"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2, Conveyors.multiBlock})
+  void oneRun(int size) throws IOException {
+    byte[] data = new byte[size];
+    Arrays.fill(data, (byte) 'a');
+    new Conveyors(dir).assertRoundTrip(data, executor("rle", "encode"), executor("rle", "decode"));
+  }
+
+  @Test
+  void decoderBlock() throws IOException {
+    // state of transform carries over between blocks, decoder may cut stream anywhere
+    new Conveyors(dir).assertRoundTrip(text(Conveyors.multiBlock),
+        executor("rle", "encode"), executor("rle", "decode", "block 7"));
+  }
+}
@@ -0,0 +1,106 @@
+package transporter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static transporter.Conveyors.block;
+import static transporter.Conveyors.executor;
+import static transporter.Conveyors.text;
+
+/**
+ * Indexed container: whole decoding by several conveyors and extract of ranges crossing frames
+ */
+class ContainerTest {
+  @TempDir
+  Path dir;
+
+  /**
+   * Encode data into indexed container
+   * @param conveyors
+   * @param data
+   * @param encoder: lines of encoder config
+   * @throws IOException
+   */
+  private static void encode(Conveyors conveyors, byte[] data, String[] encoder) throws IOException {
+    Files.write(Paths.get(conveyors.path("in.bin")), data);
+    assertTrue(conveyors.run(conveyors.path("in.bin"), conveyors.path("enc.bin"),
+        conveyors.config("executor " + conveyors.config(encoder), "output indexed")), "encoding conveyor failed");
+  }
+
+  /**
+   * Decode indexed container
+   * @param conveyors
+   * @param decoder: lines of decoder config
+   * @param lines: other lines of conveyor config
+   * @return byte[]: decoded data
+   * @throws IOException
+   */
+  private static byte[] decode(Conveyors conveyors, String[] decoder, String... lines) throws IOException {
+    String[] conveyor = Arrays.copyOf(new String[] {"executor " + conveyors.config(decoder), "input indexed"}, lines.length + 2);
+    System.arraycopy(lines, 0, conveyor, 2, lines.length);
+    assertTrue(conveyors.run(conveyors.path("enc.bin"), conveyors.path("dec.bin"), conveyors.config(conveyor)),
+        "decoding conveyor failed");
+    return Files.readAllBytes(Paths.get(conveyors.path("dec.bin")));
+  }
+
+  /**
+   * Check whole decoding and extract of ranges: first byte, border of frames, tail and range past the end
+   * @param size: length of data
+   * @param conveyors
+   * @param encoder: lines of encoder config
+   * @param decoder: lines of decoder config
+   * @throws IOException
+   */
+  private static void assertContainer(int size, Conveyors conveyors, String[] encoder, String[] decoder) throws IOException {
+    byte[] data = text(size);
+    encode(conveyors, data, encoder);
+    assertArrayEquals(data, decode(conveyors, decoder, "workers 3"));
+    long[][] ranges = {{0, 1}, {block - 5, block + 5}, {size / 2, size / 2}, {Math.max(0, size - 10), size + 100}};
+    for (long[] range : ranges) {
+      if (range[0] > size)
+        continue;
+      byte[] expected = Arrays.copyOfRange(data, (int) range[0], (int) Math.min(range[1], size));
+      assertArrayEquals(expected, decode(conveyors, decoder, "extract " + range[0] + " " + range[1]),
+          "extract " + range[0] + " " + range[1]);
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, Conveyors.multiBlock})
+  void staticTable(int size) throws IOException {
+    Conveyors conveyors = new Conveyors(dir);
+    String table = "table " + conveyors.path("table.txt");
+    // frames are independent, whole container is decoded by several conveyors
+    assertContainer(size, conveyors,
+        executor("tans", "encode", table, "table_method write"),
+        executor("tans", "decode", table, "table_method read"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, Conveyors.multiBlock})
+  void embeddedHeader(int size) throws IOException {
+    Conveyors conveyors = new Conveyors(dir);
+    // every conveyor decodes model frame first
+    assertContainer(size, conveyors,
+        executor("range", "encode", "table " + conveyors.path("table.txt"), "header embed", "table_method write"),
+        executor("range", "decode", "table_method header"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, Conveyors.multiBlock})
+  void adaptive(int size) throws IOException {
+    // frames depend on previous ones, extract decodes from the first frame
+    assertContainer(size, new Conveyors(dir),
+        executor("range", "encode", "table_method adaptive"),
+        executor("range", "decode", "table_method adaptive"));
+  }
+}
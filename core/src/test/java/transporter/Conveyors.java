@@ -0,0 +1,131 @@
+package transporter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import logger.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Conveyors of tests: config files and data files in temporary directory, conveyor runs in this JVM.
+ * Executor configs are given as lines, names of files in them are resolved by path()
+ */
+public final class Conveyors {
+  public static final int block = 4096;
+  public static final int multiBlock = 3 * block + 123; // Input of several blocks, the last one incomplete
+  private final Path dir;
+  private int configs;                                  // Numbers config files
+
+  static {
+    Logger.setLevel(Logger.Level.ERROR);
+  }
+
+  /**
+   * Conveyors constructor
+   * @param dir: temporary directory of test
+   */
+  public Conveyors(Path dir) {
+    this.dir = dir;
+  }
+
+  /**
+   * Get path of file in directory of test
+   * @param name
+   * @return String: absolute path
+   */
+  public String path(String name) {
+    return dir.resolve(name).toAbsolutePath().toString();
+  }
+
+  /**
+   * Get lines of executor config with test block
+   * @param type: executor type
+   * @param target: encode or decode
+   * @param lines: other configs
+   * @return String[]: lines of config
+   */
+  public static String[] executor(String type, String target, String... lines) {
+    String[] config = new String[lines.length + 3];
+    config[0] = "type " + type;
+    config[1] = "target " + target;
+    config[2] = "block " + block;
+    System.arraycopy(lines, 0, config, 3, lines.length);
+    return config;
+  }
+
+  /**
+   * Write config file
+   * @param lines
+   * @return String: path of new config file
+   * @throws IOException
+   */
+  public String config(String... lines) throws IOException {
+    Path file = dir.resolve("config" + (configs++) + ".txt");
+    Files.write(file, (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+    return file.toAbsolutePath().toString();
+  }
+
+  /**
+   * Run conveyor
+   * @param src
+   * @param dst
+   * @param conveyorConfig
+   * @return boolean: true if conveyor succeeded
+   * @throws IOException in case of wrong configs
+   */
+  public boolean run(String src, String dst, String conveyorConfig) throws IOException {
+    return new Transporter(src, dst, conveyorConfig).run();
+  }
+
+  /**
+   * Encode data by conveyor of one executor, then decode it by another one
+   * @param data
+   * @param encoder: lines of encoder config
+   * @param decoder: lines of decoder config
+   * @return byte[]: decoded data
+   * @throws IOException
+   */
+  public byte[] roundTrip(byte[] data, String[] encoder, String[] decoder) throws IOException {
+    Files.write(dir.resolve("in.bin"), data);
+    assertTrue(run(path("in.bin"), path("enc.bin"), config("executor " + config(encoder))), "encoding conveyor failed");
+    assertTrue(run(path("enc.bin"), path("dec.bin"), config("executor " + config(decoder))), "decoding conveyor failed");
+    return Files.readAllBytes(dir.resolve("dec.bin"));
+  }
+
+  /**
+   * Check that data survives round trip
+   * @param data
+   * @param encoder: lines of encoder config
+   * @param decoder: lines of decoder config
+   * @throws IOException
+   */
+  public void assertRoundTrip(byte[] data, String[] encoder, String[] decoder) throws IOException {
+    assertArrayEquals(data, roundTrip(data, encoder, decoder));
+  }
+
+  /**
+   * Generate text-like data: skewed letters with runs of the same letter
+   * @param size
+   * @return byte[]: data of given size, the same for the same size
+   */
+  public static byte[] text(int size) {
+    Random random = new Random(size);
+    byte[] data = new byte[size];
+    int i = 0;
+    while (i < size) {
+      // small letters are more probable than big ones
+      byte ch = (byte) ('a' + Math.min(random.nextInt(26), random.nextInt(26)));
+      int run = random.nextInt(8) == 0 ? 2 + random.nextInt(40) : 1;
+      int end = Math.min(size, i + run);
+      Arrays.fill(data, i, end, ch);
+      i = end;
+    }
+    return data;
+  }
+}
@@ -0,0 +1,93 @@
+package transporter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static transporter.Conveyors.executor;
+import static transporter.Conveyors.text;
+
+/**
+ * Chains of executors in every mode keep order of blocks, broken input fails conveyor
+ */
+class TransporterTest {
+  @TempDir
+  Path dir;
+
+  @ParameterizedTest
+  @ValueSource(strings = {"direct", "scheduled", "pipeline"})
+  void chain(String mode) throws IOException {
+    Conveyors conveyors = new Conveyors(dir);
+    byte[] data = text(Conveyors.multiBlock);
+    Files.write(Paths.get(conveyors.path("in.bin")), data);
+    String encoder = conveyors.config(
+        "executor " + conveyors.config(executor("rle", "encode")) + " 2",
+        "executor " + conveyors.config(executor("mtf", "encode")) + " 3",
+        "executor " + conveyors.config(executor("range", "encode", "table_method adaptive")),
+        "mode " + mode);
+    String decoder = conveyors.config(
+        "executor " + conveyors.config(executor("range", "decode", "table_method adaptive")) + " 2",
+        "executor " + conveyors.config(executor("mtf", "decode")) + " 3",
+        "executor " + conveyors.config(executor("rle", "decode")),
+        "mode " + mode);
+    assertTrue(conveyors.run(conveyors.path("in.bin"), conveyors.path("enc.bin"), encoder), "encoding conveyor failed");
+    assertTrue(conveyors.run(conveyors.path("enc.bin"), conveyors.path("dec.bin"), decoder), "decoding conveyor failed");
+    assertArrayEquals(data, Files.readAllBytes(Paths.get(conveyors.path("dec.bin"))));
+  }
+
+  @Test
+  void pipelineMerge() throws IOException {
+    Conveyors conveyors = new Conveyors(dir);
+    Files.write(Paths.get(conveyors.path("in.bin")), text(10));
+    // order of blocks of several providers depends on their threads
+    String conveyor = conveyors.config(
+        "executor " + conveyors.config(executor("rle", "encode")) + " 2 3",
+        "executor " + conveyors.config(executor("mtf", "encode")) + " 4",
+        "executor " + conveyors.config(executor("mtf", "encode")) + " 4",
+        "executor " + conveyors.config(executor("range", "encode", "table_method adaptive")),
+        "mode pipeline");
+    IOException ex = assertThrows(IOException.class,
+        () -> conveyors.run(conveyors.path("in.bin"), conveyors.path("enc.bin"), conveyor));
+    assertTrue(ex.getMessage().startsWith("Pipeline mode needs executors with one provider"), ex.getMessage());
+  }
+
+  @Test
+  void brokenFrame() throws IOException {
+    Conveyors conveyors = new Conveyors(dir);
+    conveyors.roundTrip(text(Conveyors.multiBlock),
+        executor("range", "encode", "table_method adaptive"),
+        executor("range", "decode", "table_method adaptive"));
+    // number of symbols of the first frame is far more than block
+    Path encoded = Paths.get(conveyors.path("enc.bin"));
+    byte[] frames = Files.readAllBytes(encoded);
+    frames[0] = 0x7F;
+    Files.write(encoded, frames);
+    String decoder = conveyors.config("executor " + conveyors.config(executor("range", "decode", "table_method adaptive")));
+    assertFalse(conveyors.run(conveyors.path("enc.bin"), conveyors.path("dec.bin"), decoder));
+  }
+
+  @Test
+  void truncatedFrame() throws IOException {
+    Conveyors conveyors = new Conveyors(dir);
+    conveyors.roundTrip(text(Conveyors.multiBlock),
+        executor("tans", "encode", "table " + conveyors.path("table.txt"), "table_method write"),
+        executor("tans", "decode", "table " + conveyors.path("table.txt"), "table_method read"));
+    Path encoded = Paths.get(conveyors.path("enc.bin"));
+    byte[] frames = Files.readAllBytes(encoded);
+    Files.write(encoded, Arrays.copyOf(frames, frames.length - 3));
+    String decoder = conveyors.config("executor " + conveyors.config(
+        executor("tans", "decode", "table " + conveyors.path("table.txt"), "table_method read")));
+    assertFalse(conveyors.run(conveyors.path("enc.bin"), conveyors.path("dec.bin"), decoder));
+  }
+}
@@ -0,0 +1,175 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import logger.Logger;
+import transporter.Transporter;
+
+/**
+ * Batch of conveyors running concurrently on a shared pool of workers in one JVM.
+ * Jobs come from a manifest or from a directory of main config files
+ */
+public class Batch {
+    private static final String delim = "\\s+"; // Delimiter in manifest
+    private final ArrayList<Job> jobs;           // Jobs in order of manifest
+    private final int workers;                   // Number of conveyors running at once
+
+    /**
+     * Job of batch: one conveyor
+     */
+    private static class Job {
+        final String src, dst, conf;
+        boolean succeeded;
+        long inBytes, outBytes, nanos;
+
+        Job(String src, String dst, String conf) {
+            this.src = src;
+            this.dst = dst;
+            this.conf = conf;
+        }
+    }
+
+    /**
+     * Batch constructor
+     * @param source: directory of main config files or manifest, every line of manifest is
+     *              either 'src dst conf' or name of main config file, '#' starts comment line
+     * @param workers: number of conveyors running at once
+     * @throws IOException in case of wrong manifest or config
+     */
+    public Batch(String source, int workers) throws IOException {
+        if (workers < 1)
+            throw new IOException("Number of workers must be positive");
+        this.workers = workers;
+        jobs = new ArrayList<>();
+        File file = new File(source);
+        if (file.isDirectory()) {
+            File[] files = file.listFiles(File::isFile);
+            if (files == null)
+                throw new IOException("Can't list directory: " + source);
+            Arrays.sort(files);
+            for (File config : files)
+                addConfig(config.getPath());
+        } else {
+            readManifest(source);
+        }
+        if (jobs.isEmpty())
+            throw new IOException("Empty batch: " + source);
+    }
+
+    /**
+     * Add job of main config file
+     * @param configFile
+     * @throws IOException
+     */
+    private void addConfig(String configFile) throws IOException {
+        Map<Parser.valTypes, String> configs = new Parser().parse(configFile);
+        String src = configs.get(Parser.valTypes.SRC_FILE);
+        String dst = configs.get(Parser.valTypes.DST_FILE);
+        String conf = configs.get(Parser.valTypes.CONF_FILE);
+        if (src == null || dst == null || conf == null)
+            throw new IOException("src, dst and conf expected in file: " + configFile);
+        jobs.add(new Job(src, dst, conf));
+    }
+
+    /**
+     * Add jobs of manifest
+     * @param manifest
+     * @throws IOException
+     */
+    private void readManifest(String manifest) throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(manifest));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+            String[] words = line.split(delim);
+            if (words.length == 3) {
+                jobs.add(new Job(words[0], words[1], words[2]));
+            } else if (words.length == 1) {
+                addConfig(words[0]);
+            } else {
+                reader.close();
+                throw new IOException("Wrong line in manifest: " + manifest + " at: " + line + " 'src dst conf' or config file expected");
+            }
+        }
+        reader.close();
+    }
+
+    /**
+     * Run all jobs and report throughput of every job and of the whole batch
+     * @return boolean: true if all jobs succeeded
+     */
+    public boolean run() {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers,
+                task -> new Thread(task, "batch-worker-" + threadCount.incrementAndGet()));
+        long start = System.nanoTime();
+        ArrayList<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < jobs.size(); i++) {
+            int id = i + 1;
+            Job job = jobs.get(i);
+            futures.add(pool.submit(() -> runJob(id, job)));
+        }
+        try {
+            for (Future<?> future : futures)
+                future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+            Logger.writeErrorLn("Batch was interrupted");
+            return false;
+        } catch (ExecutionException ex) {
+            Logger.writeErrorLn("Batch worker error: " + ex.getCause());
+        }
+        pool.shutdown();
+        long nanos = System.nanoTime() - start;
+
+        int succeeded = 0;
+        long inBytes = 0, outBytes = 0;
+        for (Job job : jobs) {
+            if (job.succeeded)
+                succeeded++;
+            inBytes += job.inBytes;
+            outBytes += job.outBytes;
+        }
+        Logger.writeLn(String.format("Batch: %d jobs, %d succeeded, %d failed, %d workers, bytes in/out: %d/%d, "
+                        + "time: %.1f ms, throughput: %.1f MB/s",
+                jobs.size(), succeeded, jobs.size() - succeeded, workers, inBytes, outBytes,
+                nanos / 1e6, nanos == 0 ? 0 : inBytes * 1e3 / nanos));
+        return succeeded == jobs.size();
+    }
+
+    /**
+     * Run one job on worker thread
+     * @param id: number of job in batch
+     * @param job
+     */
+    private void runJob(int id, Job job) {
+        long start = System.nanoTime();
+        try {
+            Transporter conveyer = new Transporter(job.src, job.dst, job.conf);
+            job.succeeded = conveyer.run();
+        } catch (IOException ex) {
+            Logger.writeLn("Job " + id + ": setting configurations error!");
+            Logger.writeErrorLn(ex);
+        } catch (RuntimeException ex) {
+            Logger.writeLn("Job " + id + ": conveyer error!");
+            Logger.writeErrorLn(ex.toString());
+        }
+        job.nanos = System.nanoTime() - start;
+        job.inBytes = new File(job.src).length();
+        job.outBytes = new File(job.dst).length();
+        Logger.writeLn(String.format("Job %d (%s -> %s): %s, bytes in/out: %d/%d, time: %.1f ms, throughput: %.1f MB/s",
+                id, job.src, job.dst, job.succeeded ? "ok" : "failed", job.inBytes, job.outBytes,
+                job.nanos / 1e6, job.nanos == 0 ? 0 : job.inBytes * 1e3 / job.nanos));
+    }
+}
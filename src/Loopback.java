@@ -0,0 +1,82 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import logger.Logger;
+import transporter.Transporter;
+
+/**
+ * Local test of remote link: receiving conveyor runs in a child JVM, sending conveyor runs in this one.
+ * Both are ordinary main config files, the sending conveyor ends with 'type send' executor and
+ * the receiving one starts with 'type receive' executor listening at the same address
+ */
+public class Loopback {
+    private static final long timeout = 600;     // Seconds to wait for receiver after sender finished
+    private final String receiverConfig, senderConfig;
+
+    /**
+     * Loopback constructor
+     * @param receiverConfig: main config file of receiving conveyor
+     * @param senderConfig: main config file of sending conveyor
+     */
+    public Loopback(String receiverConfig, String senderConfig) {
+        this.receiverConfig = receiverConfig;
+        this.senderConfig = senderConfig;
+    }
+
+    /**
+     * Start receiver, run sender and wait for receiver
+     * @return boolean: true if both conveyors succeeded
+     */
+    public boolean run() {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), "Main", receiverConfig);
+        builder.inheritIO();
+        long start = System.nanoTime();
+        Process receiver;
+        try {
+            receiver = builder.start();
+        } catch (IOException ex) {
+            Logger.writeLn("Loopback: can't start receiver!");
+            Logger.writeErrorLn(ex);
+            return false;
+        }
+
+        boolean sent = runSender();
+        boolean received = false;
+        try {
+            if (!sent)
+                receiver.destroy();
+            if (receiver.waitFor(timeout, TimeUnit.SECONDS))
+                received = receiver.exitValue() == 0;
+            else
+                Logger.writeErrorLn("Receiver did not finish in " + timeout + " s");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            Logger.writeErrorLn("Loopback was interrupted");
+        } finally {
+            if (receiver.isAlive())
+                receiver.destroyForcibly();
+        }
+        Logger.writeLn(String.format("Loopback: sender %s, receiver %s, time: %.1f ms",
+                sent ? "ok" : "failed", received ? "ok" : "failed", (System.nanoTime() - start) / 1e6));
+        return sent && received;
+    }
+
+    /**
+     * Run sending conveyor on this thread
+     * @return boolean: true if conveyor succeeded
+     */
+    private boolean runSender() {
+        try {
+            Map<Parser.valTypes, String> configs = new Parser().parse(senderConfig);
+            Transporter conveyer = new Transporter(configs.get(Parser.valTypes.SRC_FILE),
+                    configs.get(Parser.valTypes.DST_FILE), configs.get(Parser.valTypes.CONF_FILE));
+            return conveyer.run();
+        } catch (IOException ex) {
+            Logger.writeLn("Loopback: setting sender configurations error!");
+            Logger.writeErrorLn(ex);
+            return false;
+        }
+    }
+}
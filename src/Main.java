@@ -4,10 +4,30 @@ import logger.Logger;
 import transporter.Transporter;
 
 /**
- * Main class
+ * Main class, '-' as src or dst of config stands for standard input or output
+ * Usage: Main config | Main -batch manifest|directory [workers] [log]
+ *        | Main -loopback receiver_config sender_config [log]
+ *        | Main -roundtrip encoder_config decoder_config [log]
  */
 public class Main {
+    private static final String batchFlag = "-batch";
+    private static final String loopbackFlag = "-loopback";
+    private static final String roundTripFlag = "-roundtrip";
+    private static final String stdStream = "-"; // Name of standard input or output in place of file
+
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals(batchFlag)) {
+            runBatch(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals(loopbackFlag)) {
+            runLoopback(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals(roundTripFlag)) {
+            runRoundTrip(args);
+            return;
+        }
         if (args.length != 1) {
             System.out.println("Error: wrong number of arguments!");
             System.exit(1);
@@ -23,16 +43,82 @@ public class Main {
             Logger.writeErrorLn(ex);
             System.exit(1);
         }
-        // Logger set
+        // Logger set, standard output may carry data
+        if (stdStream.equals(configs.get(Parser.valTypes.DST_FILE)))
+            Logger.setConsole(System.err);
         Logger.setLogFile(configs.get(Parser.valTypes.LOG_FILE));
+        String level = configs.get(Parser.valTypes.LOG_LEVEL);
+        if (level != null) {
+            try {
+                Logger.setLevel(Logger.Level.valueOf(level.toUpperCase()));
+            } catch (IllegalArgumentException ex) {
+                Logger.writeErrorLn("Unknown log level: " + level + " debug|info|error|off expected");
+                System.exit(1);
+            }
+        }
         // Transporter set
         try {
             Transporter conveyer = new Transporter(configs.get(Parser.valTypes.SRC_FILE), configs.get(Parser.valTypes.DST_FILE),
                     configs.get(Parser.valTypes.CONF_FILE));
-            conveyer.run();
+            if (!conveyer.run())
+                System.exit(1);
         } catch (IOException ex) {
             Logger.writeLn("Transporter: setting configurations error!");
             Logger.writeErrorLn(ex);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Run local test of remote link: receiving conveyor in child JVM, sending one in this JVM
+     * @param args: -loopback receiver_config sender_config [log]
+     */
+    private static void runLoopback(String[] args) {
+        if (args.length < 3 || args.length > 4) {
+            System.out.println("Error: wrong number of arguments!");
+            System.exit(1);
+        }
+        if (args.length == 4)
+            Logger.setLogFile(args[3]);
+        if (!new Loopback(args[1], args[2]).run())
+            System.exit(1);
+    }
+
+    /**
+     * Run round trip check: encoding conveyor, then decoding conveyor, output is compared with source
+     * @param args: -roundtrip encoder_config decoder_config [log]
+     */
+    private static void runRoundTrip(String[] args) {
+        if (args.length < 3 || args.length > 4) {
+            System.out.println("Error: wrong number of arguments!");
+            System.exit(1);
+        }
+        if (args.length == 4)
+            Logger.setLogFile(args[3]);
+        if (!new RoundTrip(args[1], args[2]).run())
+            System.exit(1);
+    }
+
+    /**
+     * Run batch of conveyors
+     * @param args: -batch manifest|directory [workers] [log]
+     */
+    private static void runBatch(String[] args) {
+        if (args.length < 2 || args.length > 4) {
+            System.out.println("Error: wrong number of arguments!");
+            System.exit(1);
+        }
+        if (args.length == 4)
+            Logger.setLogFile(args[3]);
+        try {
+            int workers = args.length >= 3 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+            Batch batch = new Batch(args[1], workers);
+            if (!batch.run())
+                System.exit(1);
+        } catch (IOException | NumberFormatException ex) {
+            Logger.writeLn("Batch: setting configurations error!");
+            Logger.writeErrorLn(ex.getMessage());
+            System.exit(1);
         }
     }
-}
\ No newline at end of file
+}
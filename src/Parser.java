@@ -14,7 +14,8 @@ public class Parser {
         SRC_FILE,
         DST_FILE,
         CONF_FILE,
-        LOG_FILE
+        LOG_FILE,
+        LOG_LEVEL
     }
 
     private static final Map<String, valTypes> mapTypes; // Map of params name to types of file
@@ -25,6 +26,7 @@ public class Parser {
         mapTypes.put("dst", valTypes.DST_FILE);
         mapTypes.put("conf", valTypes.CONF_FILE);
         mapTypes.put("log", valTypes.LOG_FILE);
+        mapTypes.put("log_level", valTypes.LOG_LEVEL);
     }
 
     /**
@@ -63,6 +65,10 @@ public class Parser {
                     fileNames.put(valTypes.LOG_FILE, words[1]);
                     break;
                 }
+                case LOG_LEVEL: {
+                    fileNames.put(valTypes.LOG_LEVEL, words[1]);
+                    break;
+                }
             }
         }
         configReader.close();
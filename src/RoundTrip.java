@@ -0,0 +1,78 @@
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import logger.Logger;
+import transporter.Transporter;
+
+/**
+ * Round trip check: encoding conveyor and decoding conveyor run one after another in this JVM,
+ * output of decoding conveyor must be equal to input of encoding one. Both are ordinary main config
+ * files, dst of the first one is src of the second one
+ */
+public class RoundTrip {
+    private final String encoderConfig, decoderConfig;
+
+    /**
+     * RoundTrip constructor
+     * @param encoderConfig: main config file of encoding conveyor
+     * @param decoderConfig: main config file of decoding conveyor
+     */
+    public RoundTrip(String encoderConfig, String decoderConfig) {
+        this.encoderConfig = encoderConfig;
+        this.decoderConfig = decoderConfig;
+    }
+
+    /**
+     * Run both conveyors and compare source with decoded output
+     * @return boolean: true if both conveyors succeeded and output is equal to source
+     */
+    public boolean run() {
+        long start = System.nanoTime();
+        try {
+            Map<Parser.valTypes, String> encoder = new Parser().parse(encoderConfig);
+            Map<Parser.valTypes, String> decoder = new Parser().parse(decoderConfig);
+            if (!runConveyor(encoder) || !runConveyor(decoder)) {
+                Logger.writeLn("Round trip: conveyor failed");
+                return false;
+            }
+            long diff = compare(encoder.get(Parser.valTypes.SRC_FILE), decoder.get(Parser.valTypes.DST_FILE));
+            if (diff >= 0) {
+                Logger.writeLn("Round trip: output differs from source at byte " + diff);
+                return false;
+            }
+        } catch (IOException ex) {
+            Logger.writeLn("Round trip error!");
+            Logger.writeErrorLn(ex);
+            return false;
+        }
+        Logger.writeLn(String.format("Round trip: ok, time: %.1f ms", (System.nanoTime() - start) / 1e6));
+        return true;
+    }
+
+    private static boolean runConveyor(Map<Parser.valTypes, String> configs) throws IOException {
+        return new Transporter(configs.get(Parser.valTypes.SRC_FILE), configs.get(Parser.valTypes.DST_FILE),
+                configs.get(Parser.valTypes.CONF_FILE)).run();
+    }
+
+    /**
+     * Compare files
+     * @param source
+     * @param output
+     * @return long: offset of the first differing byte, -1 if files are equal
+     * @throws IOException
+     */
+    private static long compare(String source, String output) throws IOException {
+        try (InputStream a = new BufferedInputStream(new FileInputStream(source));
+             InputStream b = new BufferedInputStream(new FileInputStream(output))) {
+            for (long pos = 0; ; pos++) {
+                int x = a.read(), y = b.read();
+                if (x != y)
+                    return pos;
+                if (x < 0)
+                    return -1;
+            }
+        }
+    }
+}
@@ -6,5 +6,9 @@ package adapter;
 public enum AdapterType {
     DOUBLE,
     BYTE,
-    CHAR
+    CHAR,
+    DOUBLE_ARRAY, // bulk primitive transfer, see DoubleArrayAdapter
+    BYTE_ARRAY,   // bulk primitive transfer, see ByteArrayAdapter
+    DOUBLE_BLOCK, // shared block of doubles without copying, see BlockAdapter
+    BYTE_BLOCK    // shared block of bytes without copying, see BlockAdapter
 }
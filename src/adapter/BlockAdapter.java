@@ -0,0 +1,9 @@
+package adapter;
+
+public interface BlockAdapter {
+  /**
+   * Get current block of provider without copying
+   * @return SharedBlock: block retained for caller, caller must release it
+   */
+  SharedBlock getBlock();
+}
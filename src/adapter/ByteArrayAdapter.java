@@ -0,0 +1,12 @@
+package adapter;
+
+public interface ByteArrayAdapter {
+  /**
+   * Read next bytes into array
+   * @param dst: destination array
+   * @param off: offset in destination array
+   * @param len: maximum number of bytes to read
+   * @return int: number of bytes read, -1 if there are no more bytes
+   */
+  int read(byte[] dst, int off, int len);
+}
@@ -0,0 +1,12 @@
+package adapter;
+
+public interface DoubleArrayAdapter {
+  /**
+   * Read next doubles into array
+   * @param dst: destination array
+   * @param off: offset in destination array
+   * @param len: maximum number of doubles to read
+   * @return int: number of doubles read, -1 if there are no more doubles
+   */
+  int read(double[] dst, int off, int len);
+}
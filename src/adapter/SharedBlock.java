@@ -0,0 +1,112 @@
+package adapter;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Immutable block of bytes or doubles shared by several consumers.
+ * Every holder calls release() when done, array goes back to pool of producer
+ * after the last release
+ */
+public final class SharedBlock {
+  private final Object data;        // byte[] or double[], never changed while shared
+  private final int len;
+  private final Queue<Object> pool; // Pool to return array to, may be null
+  private final AtomicInteger refs;
+
+  /**
+   * Block constructor, creator holds the first reference
+   * @param data: byte[] or double[]
+   * @param len: number of valid elements
+   * @param pool: pool of free arrays of producer, may be null
+   */
+  public SharedBlock(Object data, int len, Queue<Object> pool) {
+    this.data = data;
+    this.len = len;
+    this.pool = pool;
+    refs = new AtomicInteger(1);
+  }
+
+  /**
+   * Get number of elements
+   * @return int: length
+   */
+  public int length() {
+    return len;
+  }
+
+  /**
+   * Check type of elements
+   * @return boolean: true for bytes, false for doubles
+   */
+  public boolean isBytes() {
+    return data instanceof byte[];
+  }
+
+  /**
+   * Get read-only view of bytes
+   * @return ByteBuffer: view from 0 to length
+   */
+  public ByteBuffer bytes() {
+    return ByteBuffer.wrap((byte[]) data, 0, len).slice().asReadOnlyBuffer();
+  }
+
+  /**
+   * Get read-only view of doubles
+   * @return DoubleBuffer: view from 0 to length
+   */
+  public DoubleBuffer doubles() {
+    return DoubleBuffer.wrap((double[]) data, 0, len).slice().asReadOnlyBuffer();
+  }
+
+  /**
+   * Copy elements into array
+   * @param index: first element of block
+   * @param dst: byte[] or double[] of the same type as block
+   * @param off
+   * @param count
+   */
+  public void copyTo(int index, Object dst, int off, int count) {
+    System.arraycopy(data, index, dst, off, count);
+  }
+
+  /**
+   * Get byte element
+   * @param index
+   * @return byte: element
+   */
+  public byte getByte(int index) {
+    return ((byte[]) data)[index];
+  }
+
+  /**
+   * Get double element
+   * @param index
+   * @return double: element
+   */
+  public double getDouble(int index) {
+    return ((double[]) data)[index];
+  }
+
+  /**
+   * Take one more reference
+   * @return SharedBlock: this block
+   */
+  public SharedBlock retain() {
+    refs.incrementAndGet();
+    return this;
+  }
+
+  /**
+   * Drop reference, the last one returns array to pool
+   */
+  public void release() {
+    int left = refs.decrementAndGet();
+    if (left == 0 && pool != null)
+      pool.offer(data);
+    else if (left < 0)
+      throw new IllegalStateException("Block released too many times");
+  }
+}
@@ -0,0 +1,483 @@
+package encoder;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import adapter.AdapterType;
+import executer.Executor;
+import executer.ExecutorProvider;
+import logger.Logger;
+
+/**
+ * Executor coding bytes with tabled asymmetric numeral systems (tANS), built from the same static
+ * probability model as range coder. Every block is coded as one frame: int number of symbols,
+ * int length of payload, payload. Block of decoder must not be less than block of encoder,
+ * frame of more symbols is rejected as broken. Letters are coded by 4 interleaved states sharing one bit stream,
+ * letter i by state i % 4, so 4 independent chains of table lookups run at once.
+ * Encoder codes block backwards and ends stream with final states and a marker bit,
+ * decoder reads stream backwards from the marker
+ */
+public class AnsCoder extends ModelCoder {
+  private static final int frameHeaderLen = 8;
+  private static final int states = 4;              // Number of interleaved states
+  private static final int slack = 8;               // Bytes after end of stream written by flush
+  private int[] freq;                               // Quantized frequencies of model
+  private TableModel cached;                        // Model of table file shared by coders, null if not cached
+  private AnsTables tables;
+  private int tableLog = 12;                        // log2 of number of states
+  private byte[] bytesIn;                           // Copy of input block which has no array
+  private byte[] pending;                           // Decoder: received bytes of incomplete frame
+  private int pendingLen;
+
+  private enum confTypes {
+    SEQUENCE_LEN,
+    TABLE_LOG
+  }
+
+  private static final Map<String, confTypes> configMap;    // Map config name to config type
+
+  static {
+    configMap = new HashMap<>();
+    configMap.put("num", confTypes.SEQUENCE_LEN);
+    configMap.put("table_log", confTypes.TABLE_LOG);
+  }
+
+  /**
+   * tANS coder constructor
+   * @param inFile: input file name for setting probability table
+   */
+  public AnsCoder(String inFile) {
+    super(inFile);
+  }
+
+  /**
+   * Set configs of tANS coder: 'table_log'
+   * @param words
+   * @param confFile
+   * @param line
+   * @return boolean: false if config is unknown
+   * @throws IOException in case of wrong arguments
+   */
+  @Override
+  protected boolean setConfig(String[] words, String confFile, String line) throws IOException {
+    confTypes type = configMap.get(words[0]);
+    if (type == null)
+      return false;
+    switch (type) {
+      case SEQUENCE_LEN: {
+        // tANS coder codes whole block as one sequence
+        break;
+      }
+      case TABLE_LOG: {
+        tableLog = Integer.parseInt(words[1]);
+        if (tableLog < AnsTables.minTableLog || tableLog > AnsTables.maxTableLog)
+          throw new IOException("Table log must be in " + AnsTables.minTableLog + ".." + AnsTables.maxTableLog
+              + " in file: " + confFile + " at: " + line);
+        break;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * tANS coder reads and writes bytes for both targets
+   */
+  @Override
+  protected void setTypes() {
+    readableTypes.add(AdapterType.BYTE_BLOCK);
+    readableTypes.add(AdapterType.BYTE_ARRAY);
+    readableTypes.add(AdapterType.BYTE);
+    writableTypes.add(AdapterType.BYTE_BLOCK);
+    writableTypes.add(AdapterType.BYTE_ARRAY);
+    writableTypes.add(AdapterType.BYTE);
+  }
+
+  /**
+   * Quantize probabilities, state tables are built once configs are set
+   * @throws IOException if table is empty
+   */
+  @Override
+  protected void useProbabilities() throws IOException {
+    cached = null;
+    freq = BinaryModel.quantize(probability);
+  }
+
+  /**
+   * Use cached table model, its state tables are shared
+   * @param model
+   */
+  @Override
+  protected void useModel(TableModel model) {
+    cached = model;
+  }
+
+  /**
+   * Build state tables of binary model
+   * @param model
+   */
+  @Override
+  protected void useModel(BinaryModel model) {
+    cached = null;
+    freq = model.getFreq();
+    tables = new AnsTables(freq, tableLog);
+  }
+
+  /**
+   * Get binary model of quantized frequencies
+   * @return BinaryModel
+   * @throws IOException if table is empty
+   */
+  @Override
+  protected BinaryModel getModel() throws IOException {
+    return new BinaryModel(1, blockSize, cached != null ? cached.frequencies().freq : freq);
+  }
+
+  /**
+   * Build state tables of model, tables of cached model are shared
+   * @throws IOException if no model is set
+   */
+  private void buildTables() throws IOException {
+    if (cached != null)
+      tables = cached.ansTables(tableLog);
+    else if (freq != null)
+      tables = new AnsTables(freq, tableLog);
+    else if (!modelFromHeader)
+      throw new IOException("Probability table expected: table_method read|write|header");
+  }
+
+  /**
+   * Code data
+   * @param data: ByteBuffer, first dataLen elements are used
+   * @return Object: coded data, first dataOutLen elements are valid
+   * @throws UncheckedIOException in case of wrong data, conveyor reports it as its error
+   */
+  @Override
+  public Object code(Object data) {
+    try {
+      if (target == targetType.ENCODE)
+        return encode((ByteBuffer) data);
+      return decode((ByteBuffer) data);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /**
+   * Encode block into one frame. Letters are coded from the last one, so decoder gets them in order
+   * @param data
+   * @return byte[]: frame
+   * @throws IOException if letter is not in probability table
+   */
+  private byte[] encode(ByteBuffer data) throws IOException {
+    Logger.debug("Encoding...");
+    byte[] in;
+    int off;
+    if (data.hasArray()) {
+      in = data.array();
+      off = data.arrayOffset() + data.position();
+    } else {
+      if (bytesIn == null || bytesIn.length < dataLen)
+        bytesIn = new byte[dataLen];
+      data.duplicate().get(bytesIn, 0, dataLen);
+      in = bytesIn;
+      off = 0;
+    }
+    int log = tables.tableLog, size = 1 << log;
+    byte[] out = outputBytes(frameHeaderLen + (int) ((long) dataLen * log >>> 3) + states * 2 + 1 + slack);
+    int[] deltaBits = tables.deltaBits, deltaState = tables.deltaState, nextState = tables.nextState;
+    int[] absent = tables.absent;
+    int missing = 0;
+    int pos = frameHeaderLen;
+    long acc = 0;                                   // Bits not written yet, the first one in low bit
+    int bits = 0;
+
+    int[] state = {size, size, size, size};
+    int i = off + dataLen - 1;
+    // letters after the last whole group of 4
+    for (; i >= off && ((i - off) & 3) != 3; i--) {
+      int s = in[i] & 0xFF, lane = (i - off) & 3, x = state[lane];
+      int nb = (x + deltaBits[s]) >>> 16;
+      acc |= (long) (x & ((1 << nb) - 1)) << bits;
+      bits += nb;
+      state[lane] = nextState[(x >>> nb) + deltaState[s]];
+      missing |= absent[s];
+    }
+    pos = flush(out, pos, acc, bits);
+    acc >>>= bits & ~7;
+    bits &= 7;
+
+    int x0 = state[0], x1 = state[1], x2 = state[2], x3 = state[3];
+    for (; i >= off; i -= 4) {
+      int s = in[i] & 0xFF;
+      int nb = (x3 + deltaBits[s]) >>> 16;
+      acc |= (long) (x3 & ((1 << nb) - 1)) << bits;
+      bits += nb;
+      x3 = nextState[(x3 >>> nb) + deltaState[s]];
+      missing |= absent[s];
+
+      s = in[i - 1] & 0xFF;
+      nb = (x2 + deltaBits[s]) >>> 16;
+      acc |= (long) (x2 & ((1 << nb) - 1)) << bits;
+      bits += nb;
+      x2 = nextState[(x2 >>> nb) + deltaState[s]];
+      missing |= absent[s];
+
+      s = in[i - 2] & 0xFF;
+      nb = (x1 + deltaBits[s]) >>> 16;
+      acc |= (long) (x1 & ((1 << nb) - 1)) << bits;
+      bits += nb;
+      x1 = nextState[(x1 >>> nb) + deltaState[s]];
+      missing |= absent[s];
+
+      s = in[i - 3] & 0xFF;
+      nb = (x0 + deltaBits[s]) >>> 16;
+      acc |= (long) (x0 & ((1 << nb) - 1)) << bits;
+      bits += nb;
+      x0 = nextState[(x0 >>> nb) + deltaState[s]];
+      missing |= absent[s];
+
+      pos = flush(out, pos, acc, bits);
+      acc >>>= bits & ~7;
+      bits &= 7;
+    }
+    if (missing != 0) {
+      for (int j = off; j < off + dataLen; j++)
+        if (absent[in[j] & 0xFF] != 0)
+          throw new IOException("Letter " + in[j] + " is not in probability table");
+    }
+
+    // final states and marker bit, decoder starts from them
+    acc |= (long) (x0 - size) << bits;
+    bits += log;
+    acc |= (long) (x1 - size) << bits;
+    bits += log;
+    acc |= (long) (x2 - size) << bits;
+    bits += log;
+    acc |= (long) (x3 - size) << bits;
+    bits += log;
+    pos = flush(out, pos, acc, bits);
+    acc >>>= bits & ~7;
+    bits &= 7;
+    acc |= 1L << bits;
+    bits++;
+    flush(out, pos, acc, bits);
+    pos += (bits + 7) >>> 3;
+
+    putInt(out, 0, dataLen);
+    putInt(out, 4, pos - frameHeaderLen);
+    dataOutLen = pos;
+    Logger.debug("Encoding finished!!");
+    return out;
+  }
+
+  /**
+   * Write 8 bytes of bit accumulator, low byte first
+   * @param out: array with slack bytes after pos
+   * @param pos
+   * @param acc
+   * @param bits: number of valid bits in acc
+   * @return int: position after whole bytes written
+   */
+  private static int flush(byte[] out, int pos, long acc, int bits) {
+    out[pos] = (byte) acc;
+    out[pos + 1] = (byte) (acc >>> 8);
+    out[pos + 2] = (byte) (acc >>> 16);
+    out[pos + 3] = (byte) (acc >>> 24);
+    out[pos + 4] = (byte) (acc >>> 32);
+    out[pos + 5] = (byte) (acc >>> 40);
+    out[pos + 6] = (byte) (acc >>> 48);
+    out[pos + 7] = (byte) (acc >>> 56);
+    return pos + (bits >>> 3);
+  }
+
+  /**
+   * Decode all complete frames received so far
+   * @param data
+   * @return byte[]: decoded bytes
+   * @throws IOException in case of broken frame
+   */
+  private byte[] decode(ByteBuffer data) throws IOException {
+    Logger.debug("Decoding...");
+    if (pending == null || pending.length < pendingLen + dataLen)
+      pending = Arrays.copyOf(pending == null ? new byte[0] : pending, Math.max(2 * (pendingLen + dataLen), 64));
+    data.duplicate().get(pending, pendingLen, dataLen);
+    pendingLen += dataLen;
+
+    int pos = 0;
+    dataOutLen = 0;
+    byte[] bytesOut = outputBytes(blockSize);
+    while (pendingLen - pos >= frameHeaderLen) {
+      int symbols = getInt(pending, pos);
+      int payload = getInt(pending, pos + 4);
+      if (symbols < 0 || payload <= 0)
+        throw new IOException("Broken tANS frame");
+      // frame codes one block of encoder, count is checked before output grows by it
+      if (symbols > blockSize)
+        throw new IOException("Broken tANS frame of " + symbols + " symbols, block is " + blockSize);
+      if (pendingLen - pos - frameHeaderLen < payload)
+        break;
+      if (bytesOut.length < dataOutLen + symbols)
+        bytesOut = Arrays.copyOf(bytesOut, Math.max(dataOutLen + symbols, 2 * bytesOut.length));
+      int start = pos + frameHeaderLen;
+      decodeFrame(pending, start, start + payload, bytesOut, dataOutLen, symbols);
+      dataOutLen += symbols;
+      pos = start + payload;
+    }
+    System.arraycopy(pending, pos, pending, 0, pendingLen - pos);
+    pendingLen -= pos;
+    Logger.debug("Decoding finished!!!");
+    return bytesOut;
+  }
+
+  /**
+   * Check that input ended with a whole frame
+   * @throws IOException if decoder holds bytes of incomplete frame
+   */
+  @Override
+  public void complete() throws IOException {
+    if (target == targetType.DECODE && pendingLen > 0)
+      throw new IOException("Truncated input: incomplete tANS frame of " + pendingLen + " bytes at the end");
+  }
+
+  /**
+   * Decode payload of one frame, stream is read backwards from the marker bit
+   * @param buf
+   * @param start: first byte of payload
+   * @param end: end of payload
+   * @param out
+   * @param outPos
+   * @param symbols: number of letters in frame
+   * @throws IOException in case of broken payload
+   */
+  private void decodeFrame(byte[] buf, int start, int end, byte[] out, int outPos, int symbols) throws IOException {
+    int log = tables.tableLog, mask = (1 << log) - 1;
+    int[] table = tables.decode;
+    if (buf[end - 1] == 0)
+      throw new IOException("Broken tANS frame: no end mark");
+    // container holds 8 bytes of stream from ptr, the last byte in high bits, consumed bits are counted from the top
+    int ptr = Math.max(start, end - 8);
+    long container = load(buf, ptr, end);
+    int consumed = Long.numberOfLeadingZeros(container) + 1;
+
+    int x3 = (int) ((container << consumed) >>> (64 - log));
+    consumed += log;
+    int x2 = (int) ((container << consumed) >>> (64 - log));
+    consumed += log;
+    int x1 = (int) ((container << consumed) >>> (64 - log));
+    consumed += log;
+    int x0 = (int) ((container << consumed) >>> (64 - log));
+    consumed += log;
+
+    int end4 = outPos + (symbols & ~3);
+    int i = outPos;
+    for (; i < end4; i += 4) {
+      // one reload gives at least 57 bits, 4 letters take at most 4 * maxTableLog
+      if (ptr - start >= 8) {
+        ptr -= consumed >>> 3;
+        consumed &= 7;
+        container = load(buf, ptr, end);
+      } else if (ptr > start) {
+        int n = Math.min(consumed >>> 3, ptr - start);
+        ptr -= n;
+        consumed -= n << 3;
+        container = load(buf, ptr, end);
+      }
+      int e = table[x0];
+      out[i] = (byte) e;
+      int nb = (e >>> 8) & 0xFF;
+      x0 = ((e >>> 16) + (int) ((container << consumed) >>> 1 >>> (63 - nb))) & mask;
+      consumed += nb;
+
+      e = table[x1];
+      out[i + 1] = (byte) e;
+      nb = (e >>> 8) & 0xFF;
+      x1 = ((e >>> 16) + (int) ((container << consumed) >>> 1 >>> (63 - nb))) & mask;
+      consumed += nb;
+
+      e = table[x2];
+      out[i + 2] = (byte) e;
+      nb = (e >>> 8) & 0xFF;
+      x2 = ((e >>> 16) + (int) ((container << consumed) >>> 1 >>> (63 - nb))) & mask;
+      consumed += nb;
+
+      e = table[x3];
+      out[i + 3] = (byte) e;
+      nb = (e >>> 8) & 0xFF;
+      x3 = ((e >>> 16) + (int) ((container << consumed) >>> 1 >>> (63 - nb))) & mask;
+      consumed += nb;
+    }
+
+    // letters after the last whole group of 4
+    int[] state = {x0, x1, x2, x3};
+    for (int lane = 0; i < outPos + symbols; i++, lane++) {
+      if (ptr > start) {
+        int n = Math.min(consumed >>> 3, ptr - start);
+        ptr -= n;
+        consumed -= n << 3;
+        container = load(buf, ptr, end);
+      }
+      int e = table[state[lane]];
+      out[i] = (byte) e;
+      int nb = (e >>> 8) & 0xFF;
+      state[lane] = ((e >>> 16) + (int) ((container << consumed) >>> 1 >>> (63 - nb))) & mask;
+      consumed += nb;
+    }
+    if (ptr != start || consumed != Math.min(8, end - start) << 3)
+      throw new IOException("Broken tANS frame: stream length mismatch");
+  }
+
+  /**
+   * Load up to 8 bytes of stream, low byte first, bytes missing at the end of short stream are zero
+   * @param buf
+   * @param pos
+   * @param end: end of stream
+   * @return long: container with byte at pos in low bits
+   */
+  private static long load(byte[] buf, int pos, int end) {
+    int n = Math.min(8, end - pos);
+    long value = 0;
+    for (int k = n - 1; k >= 0; k--)
+      value = (value << 8) | (buf[pos + k] & 0xFF);
+    return value << ((8 - n) << 3);
+  }
+
+  private static void putInt(byte[] buf, int pos, int value) {
+    buf[pos] = (byte) (value >>> 24);
+    buf[pos + 1] = (byte) (value >>> 16);
+    buf[pos + 2] = (byte) (value >>> 8);
+    buf[pos + 3] = (byte) value;
+  }
+
+  private static int getInt(byte[] buf, int pos) {
+    return ((buf[pos] & 0xFF) << 24) | ((buf[pos + 1] & 0xFF) << 16) | ((buf[pos + 2] & 0xFF) << 8) | (buf[pos + 3] & 0xFF);
+  }
+
+  /**
+   * Set config file to executor, state tables are built from the model
+   * @param configFile
+   * @throws IOException
+   */
+  @Override
+  public void setConfigFile(String configFile) throws IOException {
+    super.setConfigFile(configFile);
+    buildTables();
+  }
+
+  /**
+   * Provider of 'tans' executor type
+   */
+  public static class Provider implements ExecutorProvider {
+    @Override
+    public String getType() {
+      return "tans";
+    }
+
+    @Override
+    public Executor create(String inputFileName) {
+      return new AnsCoder(inputFileName);
+    }
+  }
+}
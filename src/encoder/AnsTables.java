@@ -0,0 +1,115 @@
+package encoder;
+
+/**
+ * Immutable state tables of tabled asymmetric numeral systems coder (tANS), built from quantized
+ * frequencies and shared by all coders of the same model. States of table of 2^tableLog states
+ * are spread between letters in proportion to their frequencies, so coding a letter is a table
+ * lookup and a shift: encoder outputs low bits of state and jumps to state of the letter,
+ * decoder takes letter of state and reads the same bits back
+ */
+final class AnsTables {
+  static final int minTableLog = 9;
+  static final int maxTableLog = 14;  // 4 interleaved states are read from one 64-bit container
+  final int tableLog;
+  final int[] norm;                   // Frequencies summing to 2^tableLog, indexed by unsigned byte
+  final int[] decode;                 // For every state - 2^tableLog: base of next state << 16 | bits << 8 | letter
+  final int[] nextState;              // Encoder states grouped by letter
+  final int[] deltaBits;              // Encoder: number of bits of state is (state + deltaBits) >>> 16
+  final int[] deltaState;             // Encoder: index of next state is (state >>> bits) + deltaState
+  final int[] absent;                 // 1 for letters not in table, 0 otherwise
+
+  /**
+   * Build tables
+   * @param freq: 256 frequencies summing to 2^BinaryModel.totalBits
+   * @param tableLog: log2 of number of states, minTableLog..maxTableLog
+   */
+  AnsTables(int[] freq, int tableLog) {
+    this.tableLog = tableLog;
+    int size = 1 << tableLog;
+    norm = normalize(freq, tableLog);
+
+    // letters are spread over the table with odd step, so every letter gets states all over the range
+    byte[] letterOf = new byte[size];
+    int step = (size >>> 1) + (size >>> 3) + 3, mask = size - 1, pos = 0;
+    for (int s = 0; s < 256; s++)
+      for (int i = 0; i < norm[s]; i++) {
+        letterOf[pos] = (byte) s;
+        pos = (pos + step) & mask;
+      }
+
+    int[] cumulative = new int[257];
+    for (int s = 0; s < 256; s++)
+      cumulative[s + 1] = cumulative[s] + norm[s];
+    int[] next = new int[256];
+    System.arraycopy(norm, 0, next, 0, 256);
+    decode = new int[size];
+    nextState = new int[size];
+    int[] filled = cumulative.clone();
+    for (int u = 0; u < size; u++) {
+      int s = letterOf[u] & 0xFF;
+      nextState[filled[s]++] = size + u;
+      int x = next[s]++;
+      int bits = tableLog - highBit(x);
+      decode[u] = (((x << bits) - size) << 16) | (bits << 8) | s;
+    }
+
+    deltaBits = new int[256];
+    deltaState = new int[256];
+    absent = new int[256];
+    for (int s = 0; s < 256; s++) {
+      int n = norm[s];
+      if (n == 0) {
+        // any state leads to a valid index, the letter is reported by absent
+        deltaBits[s] = (tableLog << 16) - size;
+        deltaState[s] = -1;
+        absent[s] = 1;
+      } else if (n == 1) {
+        deltaBits[s] = (tableLog << 16) - size;
+        deltaState[s] = cumulative[s] - 1;
+      } else {
+        int maxBits = tableLog - highBit(n - 1);
+        deltaBits[s] = (maxBits << 16) - (n << maxBits);
+        deltaState[s] = cumulative[s] - n;
+      }
+    }
+  }
+
+  /**
+   * Scale frequencies down to 2^tableLog, every letter of the table keeps non-zero frequency
+   * @param freq: 256 frequencies summing to 2^BinaryModel.totalBits
+   * @param tableLog
+   * @return int[]: 256 frequencies summing to 2^tableLog
+   */
+  private static int[] normalize(int[] freq, int tableLog) {
+    int total = 1 << tableLog, shift = BinaryModel.totalBits - tableLog;
+    int[] norm = new int[256];
+    int sum = 0, maxSym = 0;
+    for (int i = 0; i < 256; i++) {
+      if (freq[i] == 0)
+        continue;
+      norm[i] = Math.max(1, (freq[i] + (1 << (shift - 1))) >>> shift);
+      sum += norm[i];
+      if (norm[i] > norm[maxSym])
+        maxSym = i;
+    }
+    // rounding error goes to the most probable letters, as in BinaryModel.quantize
+    while (sum != total) {
+      int diff = total - sum;
+      if (diff > 0 || norm[maxSym] + diff >= 1) {
+        norm[maxSym] += diff;
+        sum = total;
+      } else {
+        sum -= norm[maxSym] - 1;
+        norm[maxSym] = 1;
+        for (int i = 0; i < 256; i++)
+          if (norm[i] > norm[maxSym])
+            maxSym = i;
+      }
+    }
+    return norm;
+  }
+
+  private static int highBit(int value) {
+    return 31 - Integer.numberOfLeadingZeros(value);
+  }
+}
@@ -0,0 +1,207 @@
+package encoder;
+
+import io.BlockInput;
+import io.ChannelOutput;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Compact binary probability model: quantized integer frequencies of letters summing to 2^totalBits
+ * with num and block parameters. Layout (big-endian):
+ * int magic, int num, int block, short number of letters - 1, then for every letter
+ * byte letter and short frequency - 1
+ */
+public final class BinaryModel {
+  public static final int totalBits = 16;        // Frequencies sum to 2^totalBits
+  private static final int magic = 0x54434D31;   // "TCM1"
+  private static final int fixedLen = 14;        // Length of part before letters
+  private static final int letterLen = 3;
+  private final int num, block;
+  private final int[] freq;                      // Frequencies, indexed by unsigned byte
+
+  /**
+   * Model constructor
+   * @param num: sequence length
+   * @param block: block size
+   * @param freq: 256 frequencies summing to 2^totalBits
+   */
+  public BinaryModel(int num, int block, int[] freq) {
+    this.num = num;
+    this.block = block;
+    this.freq = freq;
+  }
+
+  public int getNum() {
+    return num;
+  }
+
+  public int getBlock() {
+    return block;
+  }
+
+  /**
+   * Get frequencies
+   * @return int[]: 256 frequencies summing to 2^totalBits, must not be changed
+   */
+  public int[] getFreq() {
+    return freq;
+  }
+
+  /**
+   * Get probabilities equal to quantized frequencies
+   * @return double[]: 256 probabilities
+   */
+  public double[] probabilities() {
+    double[] probability = new double[256];
+    for (int i = 0; i < 256; i++)
+      probability[i] = (double) freq[i] / (1 << totalBits);
+    return probability;
+  }
+
+  /**
+   * Turn probabilities into integer frequencies summing to 2^totalBits,
+   * every letter with non-zero probability gets non-zero frequency
+   * @param probability: 256 probabilities
+   * @return int[]: 256 frequencies
+   * @throws IOException if all probabilities are zero
+   */
+  public static int[] quantize(double[] probability) throws IOException {
+    int total = 1 << totalBits;
+    int[] freq = new int[256];
+    int sum = 0, maxSym = -1;
+    for (int i = 0; i < 256; i++) {
+      if (probability[i] <= 0)
+        continue;
+      freq[i] = Math.max(1, (int) Math.round(probability[i] * total));
+      sum += freq[i];
+      if (maxSym < 0 || freq[i] > freq[maxSym])
+        maxSym = i;
+    }
+    if (maxSym < 0)
+      throw new IOException("Empty probability table");
+    // rounding error goes to the most probable letters
+    while (sum != total) {
+      int diff = total - sum;
+      if (diff > 0 || freq[maxSym] + diff >= 1) {
+        freq[maxSym] += diff;
+        sum = total;
+      } else {
+        sum -= freq[maxSym] - 1;
+        freq[maxSym] = 1;
+        for (int i = 0; i < 256; i++)
+          if (freq[i] > freq[maxSym])
+            maxSym = i;
+      }
+    }
+    return freq;
+  }
+
+  /**
+   * Serialize model
+   * @return byte[]: binary model
+   */
+  public byte[] toBytes() {
+    int letters = 0;
+    for (int f : freq)
+      if (f > 0)
+        letters++;
+    ByteBuffer buf = ByteBuffer.allocate(fixedLen + letterLen * letters);
+    buf.putInt(magic).putInt(num).putInt(block).putShort((short) (letters - 1));
+    for (int i = 0; i < 256; i++)
+      if (freq[i] > 0)
+        buf.put((byte) i).putShort((short) (freq[i] - 1));
+    return buf.array();
+  }
+
+  /**
+   * Write model to output, in indexed container model is a frame of its own
+   * @param output
+   * @throws IOException
+   */
+  public void write(ChannelOutput output) throws IOException {
+    byte[] data = toBytes();
+    output.write(data, 0, data.length);
+    output.endFrame(0);
+  }
+
+  /**
+   * Write model file
+   * @param fileName
+   * @throws IOException
+   */
+  public void writeFile(String fileName) throws IOException {
+    Files.write(Paths.get(fileName), toBytes());
+  }
+
+  /**
+   * Read model file
+   * @param fileName
+   * @return BinaryModel: model
+   * @throws IOException in case of wrong format
+   */
+  public static BinaryModel readFile(String fileName) throws IOException {
+    return fromBytes(Files.readAllBytes(Paths.get(fileName)), fileName);
+  }
+
+  /**
+   * Read model from content of model file
+   * @param content
+   * @param fileName: name of model file for error messages
+   * @return BinaryModel: model
+   * @throws IOException in case of wrong format
+   */
+  static BinaryModel fromBytes(byte[] content, String fileName) throws IOException {
+    ByteBuffer buf = ByteBuffer.wrap(content);
+    if (buf.remaining() < fixedLen)
+      throw new IOException("Too short model file: " + fileName);
+    return parse(buf, buf);
+  }
+
+  /**
+   * Read model from the beginning of input, input continues right after model
+   * @param input
+   * @return BinaryModel: model
+   * @throws IOException in case of wrong format
+   */
+  public static BinaryModel read(BlockInput input) throws IOException {
+    ByteBuffer head = input.nextBlock(fixedLen);
+    if (head == null || head.remaining() < fixedLen)
+      throw new IOException("No model header in input");
+    int letters = (head.getShort(fixedLen - 2) & 0xFFFF) + 1;
+    ByteBuffer body = input.nextBlock(letterLen * letters);
+    if (body == null)
+      throw new IOException("Broken model header in input");
+    return parse(head, body);
+  }
+
+  /**
+   * Parse model
+   * @param head: buffer with fixed part
+   * @param body: buffer with letters, may be the same as head
+   * @return BinaryModel: model
+   * @throws IOException in case of wrong format
+   */
+  private static BinaryModel parse(ByteBuffer head, ByteBuffer body) throws IOException {
+    if (head.getInt() != magic)
+      throw new IOException("Not a binary model");
+    int num = head.getInt();
+    int block = head.getInt();
+    int letters = (head.getShort() & 0xFFFF) + 1;
+    if (body.remaining() < letterLen * letters)
+      throw new IOException("Broken binary model");
+
+    int[] freq = new int[256];
+    int sum = 0;
+    for (int i = 0; i < letters; i++) {
+      int letter = body.get() & 0xFF;
+      freq[letter] = (body.getShort() & 0xFFFF) + 1;
+      sum += freq[letter];
+    }
+    if (sum != 1 << totalBits)
+      throw new IOException("Broken binary model: frequencies sum to " + sum);
+    return new BinaryModel(num, block, freq);
+  }
+}
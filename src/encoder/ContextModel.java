@@ -0,0 +1,246 @@
+package encoder;
+
+import java.util.Arrays;
+
+/**
+ * Adaptive context model of range coder: letter is coded in context of one or two previous letters.
+ * Letter not seen in context is coded as escape and then in context of lower order, down to adaptive
+ * order-0 frequencies where every letter has non-zero frequency. Contexts are sparse lists of seen
+ * letters in hashed slots, table of every order is cleared when it exceeds its share of memory limit.
+ * Encoder and decoder update model in the same way, so no table is needed
+ */
+class ContextModel {
+  private static final int increment = 1;           // Added to count of coded letter in context
+  private static final int countLimit = (1 << 16) - 1024; // Counts of context are halved above this total
+  private static final int order0Increment = 32;
+  private static final int order0Limit = 1 << 16;
+  private final Contexts[] orders;                  // orders[k - 1] is table of contexts of order k
+  private final int[] slots;                        // Slots of current letter in every table
+  private final FrequencyTree order0;
+  private int history;                              // Previous letters, the last one in low byte
+  private int foundPos;                             // Position of current letter in context it was found in
+
+  /**
+   * Context table of one order: sparse lists of letters and their counts in hashed slots
+   */
+  private static final class Contexts {
+    private static final int slotBytes = 56;        // Approximate memory of slot without letters
+    private final int order, bits;
+    private final int[] tags;                       // Context + 1 of every slot, 0 for empty slot
+    private final int[] sizes, totals;              // Number of letters and sum of their counts in every slot
+    private final byte[][] letters;
+    private final int[][] counts;
+    private final long limit;                       // Memory limit in bytes
+    private long used;                              // Memory of letters lists in bytes
+
+    /**
+     * Table constructor
+     * @param order: number of letters in context
+     * @param limit: memory limit in bytes
+     */
+    Contexts(int order, long limit) {
+      this.order = order;
+      this.limit = limit;
+      int maxBits = 8 * order;
+      int b = 8;
+      while (b < maxBits && ((long) slotBytes << (b + 1)) <= limit / 2)
+        b++;
+      bits = b;
+      tags = new int[1 << bits];
+      sizes = new int[1 << bits];
+      totals = new int[1 << bits];
+      letters = new byte[1 << bits][];
+      counts = new int[1 << bits][];
+    }
+
+    /**
+     * Get slot of context, slot of another context with the same hash is emptied
+     * @param history: previous letters
+     * @return int: slot
+     */
+    int slot(int history) {
+      int context = order == 1 ? history & 0xFF : history & 0xFFFF;
+      int slot = bits == 8 * order ? context : (context * 0x9E3779B1) >>> (32 - bits);
+      if (tags[slot] != context + 1) {
+        tags[slot] = context + 1;
+        sizes[slot] = 0;
+        totals[slot] = 0;
+      }
+      return slot;
+    }
+
+    /**
+     * Encode letter or escape if letter is not in context, nothing is coded for empty context
+     * @param writer
+     * @param slot
+     * @param letter
+     * @return int: position of letter in context, -1 for escape
+     */
+    int encode(RangeWriter writer, int slot, int letter) {
+      int n = sizes[slot];
+      if (n == 0)
+        return -1;
+      byte[] l = letters[slot];
+      int[] c = counts[slot];
+      int cum = 0;
+      for (int i = 0; i < n; i++) {
+        if ((l[i] & 0xFF) == letter) {
+          writer.encodeTotal(cum, c[i], totals[slot] + n);
+          return i;
+        }
+        cum += c[i];
+      }
+      // escape has frequency of number of letters in context
+      writer.encodeTotal(totals[slot], n, totals[slot] + n);
+      return -1;
+    }
+
+    /**
+     * Decode position of letter or escape, nothing is decoded for empty context
+     * @param reader
+     * @param slot
+     * @return int: position of letter in context, -1 for escape
+     */
+    int decode(RangeReader reader, int slot) {
+      int n = sizes[slot];
+      if (n == 0)
+        return -1;
+      int total = totals[slot];
+      int value = reader.decodeFreqTotal(total + n);
+      if (value >= total) {
+        reader.decode(total, n);
+        return -1;
+      }
+      int[] c = counts[slot];
+      int cum = 0, i = 0;
+      while (cum + c[i] <= value)
+        cum += c[i++];
+      reader.decode(cum, c[i]);
+      return i;
+    }
+
+    int letter(int slot, int pos) {
+      return letters[slot][pos] & 0xFF;
+    }
+
+    /**
+     * Count letter found in context
+     * @param slot
+     * @param pos: position of letter
+     */
+    void hit(int slot, int pos) {
+      counts[slot][pos] += increment;
+      totals[slot] += increment;
+      if (totals[slot] > countLimit) {
+        int[] c = counts[slot];
+        int total = 0;
+        for (int i = 0; i < sizes[slot]; i++) {
+          c[i] = (c[i] + 1) >>> 1;
+          total += c[i];
+        }
+        totals[slot] = total;
+      }
+    }
+
+    /**
+     * Add letter escaped from context, table is cleared if it exceeds memory limit
+     * @param slot
+     * @param letter
+     */
+    void add(int slot, int letter) {
+      int n = sizes[slot];
+      if (letters[slot] == null || letters[slot].length == n) {
+        int capacity = letters[slot] == null ? 4 : Math.min(2 * n, 256);
+        used += (long) (capacity - n) * (1 + Integer.BYTES);
+        if (used + ((long) slotBytes << bits) > limit) {
+          clear();
+          return;
+        }
+        letters[slot] = letters[slot] == null ? new byte[capacity] : Arrays.copyOf(letters[slot], capacity);
+        counts[slot] = counts[slot] == null ? new int[capacity] : Arrays.copyOf(counts[slot], capacity);
+      }
+      letters[slot][n] = (byte) letter;
+      counts[slot][n] = increment;
+      sizes[slot] = n + 1;
+      totals[slot] += increment;
+    }
+
+    private void clear() {
+      Arrays.fill(tags, 0);
+      Arrays.fill(sizes, 0);
+      Arrays.fill(totals, 0);
+      Arrays.fill(letters, null);
+      Arrays.fill(counts, null);
+      used = 0;
+    }
+  }
+
+  /**
+   * Model constructor
+   * @param order: 1 or 2, number of previous letters in context
+   * @param memory: memory limit of context tables in bytes
+   */
+  ContextModel(int order, long memory) {
+    orders = new Contexts[order];
+    for (int k = 1; k <= order; k++)
+      orders[k - 1] = new Contexts(k, memory / order);
+    slots = new int[order];
+    order0 = new FrequencyTree(order0Increment, order0Limit);
+  }
+
+  /**
+   * Encode letter
+   * @param writer
+   * @param letter: unsigned byte
+   */
+  void encode(RangeWriter writer, int letter) {
+    int k;
+    for (k = orders.length; k > 0; k--) {
+      slots[k - 1] = orders[k - 1].slot(history);
+      foundPos = orders[k - 1].encode(writer, slots[k - 1], letter);
+      if (foundPos >= 0)
+        break;
+    }
+    if (k == 0)
+      writer.encodeTotal(order0.cumulative(letter), order0.freq(letter), order0.total());
+    update(k, letter);
+  }
+
+  /**
+   * Decode letter
+   * @param reader
+   * @return int: unsigned byte
+   */
+  int decode(RangeReader reader) {
+    int k, letter = 0;
+    for (k = orders.length; k > 0; k--) {
+      slots[k - 1] = orders[k - 1].slot(history);
+      foundPos = orders[k - 1].decode(reader, slots[k - 1]);
+      if (foundPos >= 0) {
+        letter = orders[k - 1].letter(slots[k - 1], foundPos);
+        break;
+      }
+    }
+    if (k == 0) {
+      letter = order0.find(reader.decodeFreqTotal(order0.total()));
+      reader.decode(order0.cumulative(letter), order0.freq(letter));
+    }
+    update(k, letter);
+    return letter;
+  }
+
+  /**
+   * Count coded letter in context it was found in and add it to contexts it escaped from
+   * @param found: order of context letter was found in, 0 if it was coded by order-0 frequencies
+   * @param letter
+   */
+  private void update(int found, int letter) {
+    if (found == 0)
+      order0.update(letter);
+    else
+      orders[found - 1].hit(slots[found - 1], foundPos);
+    for (int k = found + 1; k <= orders.length; k++)
+      orders[k - 1].add(slots[k - 1], letter);
+    history = (history << 8) | letter;
+  }
+}
@@ -1,112 +1,69 @@
 package encoder;
 
 import java.io.*;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import adapter.AdapterType;
-import adapter.ByteAdapter;
-import adapter.DoubleAdapter;
-import javafx.util.Pair;
 import logger.Logger;
 import executer.Executor;
+import executer.ExecutorProvider;
 
-public class Encoder implements Executor {
-  private static final String splitDelim = " |:|="; // Delimiter in config file
-  private static final String delim = " ";          // Delimiter in table of probabilities file
-  private static final String endl = "\n";
-  private DataInputStream inputFile;
-  private String inputFileName;
-  private DataOutputStream outputFile;
-  private String tableFile;
-  private Map<Byte, Double> probability;            // Map of letters to their probabilities
-  private Map<Byte, Segment> segs;                  // Map of letters to their segments
-  private int textLen, numSeq, blockSize, dataLen;
-  private ArrayList<Executor> consumers;            // Array of all consumers
-  private Map<Executor, Pair<Object, AdapterType>> adapters; // // Map of providers to pair of their adapter and adapter type
-  private Object dataOut;
-
-  private enum targetType {
-    ENCODE,
-    DECODE
-  }
-
-  private enum tableMethodType {
-    READ,   // read probabilities from table
-    WRITE   // set probabilities to table file
-  }
+public class Encoder extends ModelCoder {
+  private Segments segs;                            // Segments of letters, null if segments must be redefined
+  private long textLen;
+  private int numSeq;
+  private byte[] bytesOut;                          // Output array of current block
+  private double[] doublesOut;
+  private ForkJoinPool pool;                        // Pool for parallel coding, created for the first big block, shut down in complete()
+  private static final int minTaskGroups = 1024;    // Minimal number of sequences coded by one task
 
   private enum confTypes {
-    BLOCK_SIZE,
     SEQUENCE_LEN,
     TEXT_LEN,
-    PROBABILITY,
-    DECODE_CONF,
-    TARGET,
-    TABLE_FILE,
-    TABLE_METHOD
+    DECODE_CONF
   }
 
-  private targetType target = targetType.ENCODE;
-  private static final Map<String, targetType> tMap;        // Map target name to target type
   private static final Map<String, confTypes> configMap;    // Map config name to config type
-  private static final Map<String, tableMethodType> metMap; // Map table method name to table method type
-  private ArrayList<AdapterType> readableTypes;             // Array of current readable types
-  private ArrayList<AdapterType> writableTypes;             // Array of current writable types
-
-  class DoubleAdapterClass implements DoubleAdapter {
-    int index = 0;  // current index in dataOut
 
-    /**
-     * Get next double from dataOut
-     * @return Double: next double if exists, null otherwise
-     */
-    @Override
-    public Double getNextDouble() {
-      if (index == ((ArrayList<Double>) dataOut).size()) {
-        index = 0;
-        return null;
-      }
-      return ((ArrayList<Double>) dataOut).get(index++);
+  /**
+   * Task coding range of sequences of current block, splits itself while range is big enough
+   */
+  class RangeTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private final Object data;
+    private final int from, to, minSize;
+
+    RangeTask(Object data, int from, int to, int minSize) {
+      this.data = data;
+      this.from = from;
+      this.to = to;
+      this.minSize = minSize;
     }
-  }
-
-  class ByteAdapterClass implements ByteAdapter {
-    int index = 0;  // current index in dataOut
 
-    /**
-     * Get next byte from dataOut
-     * @return Byte: next byte if exists, null otherwise
-     */
     @Override
-    public Byte getNextByte() {
-      if (index == ((ArrayList<Byte>) dataOut).size()) {
-        index = 0;
-        return null;
+    protected void compute() {
+      if (to - from <= minSize) {
+        if (target == targetType.ENCODE)
+          encodeRange((ByteBuffer) data, from, to);
+        else
+          decodeRange((DoubleBuffer) data, from, to);
+        return;
       }
-      return ((ArrayList<Byte>) dataOut).get(index++);
+      int mid = (from + to) >>> 1;
+      invokeAll(new RangeTask(data, from, mid, minSize), new RangeTask(data, mid, to, minSize));
     }
   }
 
   static {
-    tMap = new HashMap<>();
-    tMap.put("encode", targetType.ENCODE);
-    tMap.put("decode", targetType.DECODE);
-
     configMap = new HashMap<>();
     configMap.put("num", confTypes.SEQUENCE_LEN);
     configMap.put("len", confTypes.TEXT_LEN);
-    configMap.put("prob", confTypes.PROBABILITY);
     configMap.put("decconf", confTypes.DECODE_CONF);
-    configMap.put("target", confTypes.TARGET);
-    configMap.put("block", confTypes.BLOCK_SIZE);
-    configMap.put("table", confTypes.TABLE_FILE);
-    configMap.put("table_method", confTypes.TABLE_METHOD);
-
-    metMap = new HashMap<>();
-    metMap.put("read", tableMethodType.READ);
-    metMap.put("write", tableMethodType.WRITE);
   }
 
   /**
@@ -115,414 +72,298 @@ public class Encoder implements Executor {
    * @throws IOException
    */
   public Encoder(String inFile) throws IOException {
-    probability = new HashMap<>();
-    readableTypes = new ArrayList<>();
-    writableTypes = new ArrayList<>();
-    consumers = new ArrayList<>();
-    adapters = new HashMap<>();
-    segs = new HashMap<>();
-    inputFileName = inFile;
+    super(inFile);
     textLen = 0;
   }
 
   /**
-   * Set encoder configs from file
+   * Set configs of arithmetic coder: 'num', 'len' and 'decconf'
+   * @param words
    * @param confFile
-   * @throws IOException
+   * @param line
+   * @return boolean: false if config is unknown
    */
-  private void setConfigs(String confFile) throws IOException {
-
-    BufferedReader configReader = new BufferedReader(new FileReader(confFile));
-    String line;
-    while ((line = configReader.readLine()) != null) {
-      String[] words = line.split(splitDelim);
-      if (words.length != 2 && words.length != 3)
-        throw new IOException("Wrong number of arguments in file: " + confFile + " at: " + line);
-      confTypes type = configMap.get(words[0]);
-      if (type == null)
-        throw new IOException("Unknown config: " + words[0] + " in file: " + confFile + " at: " + line);
-      switch (type) {
-        case SEQUENCE_LEN: {
-          numSeq = Integer.parseInt(words[1]);
-          break;
-        }
-        case TEXT_LEN: {
-          textLen = Integer.parseInt(words[1]);
-          break;
-        }
-        case PROBABILITY: {
-          byte ch = (byte) Integer.parseInt(words[1]);
-          probability.put(ch, Double.parseDouble(words[2]));
-          segs.put(ch, new Segment());
-          break;
-        }
-        case TARGET: {
-          target = tMap.get(words[1]);
-          if (target == null)
-            throw new IOException("Unknown target: " + words[1] + " in file: " + confFile + " at: " + line + " decode|encode expected");
-          switch (target) {
-            case ENCODE: {
-              readableTypes.add(AdapterType.BYTE);
-              writableTypes.add(AdapterType.DOUBLE);
-              break;
-            }
-            case DECODE: {
-              writableTypes.add(AdapterType.BYTE);
-              readableTypes.add(AdapterType.DOUBLE);
-              break;
-            }
-          }
-          break;
-        }
-        case BLOCK_SIZE: {
-          blockSize = Integer.parseInt(words[1]);
-          break;
-        }
-        case TABLE_FILE: {
-          tableFile = words[1];
-          break;
-        }
-        case TABLE_METHOD: {
-          tableMethodType tm = metMap.get(words[1]);
-          if (tm == null)
-            throw new IOException("Unknown method: " + words[1] + "in file: " + confFile + " at: " + line + " read|write expected");
-          switch (tm) {
-            case READ: {
-              setConfigs(tableFile);
-              break;
-            }
-            case WRITE: {
-              countProb();
-              writeDecodeConf();
-            }
-          }
-          break;
-        }
+  @Override
+  protected boolean setConfig(String[] words, String confFile, String line) {
+    confTypes type = configMap.get(words[0]);
+    if (type == null)
+      return false;
+    switch (type) {
+      case SEQUENCE_LEN: {
+        numSeq = Integer.parseInt(words[1]);
+        break;
+      }
+      case TEXT_LEN: {
+        textLen = Long.parseLong(words[1]);
+        break;
+      }
+      case DECODE_CONF: {
+        // config of decoder is written by table file
+        break;
       }
     }
-    configReader.close();
-    Logger.writeLn("Configs have been set");
+    return true;
   }
 
   /**
-   * Count probabilities of letters in input file
-   * @throws IOException
+   * Types are listed in order of preference, shared blocks first, then bulk ones
    */
-  private void countProb() throws IOException {
-    DataInputStream copy = new DataInputStream(new FileInputStream(inputFileName));
-    while (copy.available() > 0) {
-      byte ch = copy.readByte();
-      textLen++;
-      if (!probability.containsKey(ch))
-        probability.put(ch, 1.0);
-      else
-        probability.replace(ch, probability.get(ch) + 1);
-
-      segs.putIfAbsent(ch, new Segment());
+  @Override
+  protected void setTypes() {
+    switch (target) {
+      case ENCODE: {
+        readableTypes.add(AdapterType.BYTE_BLOCK);
+        readableTypes.add(AdapterType.BYTE_ARRAY);
+        readableTypes.add(AdapterType.BYTE);
+        writableTypes.add(AdapterType.DOUBLE_BLOCK);
+        writableTypes.add(AdapterType.DOUBLE_ARRAY);
+        writableTypes.add(AdapterType.DOUBLE);
+        break;
+      }
+      case DECODE: {
+        writableTypes.add(AdapterType.BYTE_BLOCK);
+        writableTypes.add(AdapterType.BYTE_ARRAY);
+        writableTypes.add(AdapterType.BYTE);
+        readableTypes.add(AdapterType.DOUBLE_BLOCK);
+        readableTypes.add(AdapterType.DOUBLE_ARRAY);
+        readableTypes.add(AdapterType.DOUBLE);
+        break;
+      }
     }
+  }
 
-    copy.close();
+  /**
+   * Segments are redefined from new probabilities
+   * @throws IOException if there are no probabilities
+   */
+  @Override
+  protected void useProbabilities() throws IOException {
+    segs = null;
+    // binary model keeps quantized probabilities, encoder must use the same ones
+    if (binaryTable || embedHeader)
+      applyModel(getModel());
+  }
 
-    for (Byte key : probability.keySet())
-      probability.replace(key, probability.get(key) / textLen);
-    Logger.writeLn("Probability have been counted");
+  /**
+   * Set sequence length and shared segments from cached table model
+   * @param model
+   */
+  @Override
+  protected void useModel(TableModel model) {
+    if (model.getNum() > 0)
+      numSeq = model.getNum();
+    segs = model.segments();
   }
 
   /**
-   * Set segments of letters
+   * Set sequence length from binary model
+   * @param model
    */
-  private void defineSegments() {
-    double l = 0;
+  @Override
+  protected void useModel(BinaryModel model) {
+    numSeq = model.getNum();
+    segs = null;
+  }
 
-    for (Map.Entry<Byte, Segment> entry : segs.entrySet()) {
-      entry.getValue().left = l;
-      entry.getValue().right = l + probability.get(entry.getKey());
-      l = entry.getValue().right;
-    }
+  /**
+   * Get binary model of current probabilities
+   * @return BinaryModel: quantized model
+   * @throws IOException if there are no probabilities
+   */
+  @Override
+  protected BinaryModel getModel() throws IOException {
+    return new BinaryModel(numSeq, blockSize, BinaryModel.quantize(probability));
   }
 
   /**
-   * Write table file
+   * Write sequence length to text table
+   * @param writer
    * @throws IOException
    */
-  private void writeDecodeConf() throws IOException {
-    BufferedWriter encWriter = new BufferedWriter(new FileWriter(tableFile));
+  @Override
+  protected void writeConfigs(Writer writer) throws IOException {
+    writer.write("num" + delim + numSeq + endl);
+  }
 
-    for (Map.Entry<String, confTypes> entry : configMap.entrySet()) {
-      switch (entry.getValue()) {
-        case SEQUENCE_LEN: {
-          encWriter.write(entry.getKey() + delim + numSeq + endl);
-          break;
-        }
-        case PROBABILITY: {
-          for (Map.Entry<Byte, Double> prEntry : probability.entrySet()) {
-            encWriter.write(entry.getKey() + delim + prEntry.getKey() + delim + prEntry.getValue() + endl);
-          }
-          break;
-        }
-      }
-    }
-    encWriter.close();
+  /**
+   * Set segments of letters from current probabilities
+   */
+  void defineSegments() {
+    segs = new Segments(probability);
   }
 
   /**
    * Code data
-   * @param data
-   * @return Object: coded data
+   * @param data: ByteBuffer to encode or DoubleBuffer to decode, first dataLen elements are used
+   * @return Object: coded data, first dataOutLen elements are valid
+   * @throws UncheckedIOException in case of wrong data, conveyor reports it as its error
    */
   public Object code(Object data) {
-    switch (target) {
-      case ENCODE: {
-        try {
-          return encode((ArrayList<Byte>) data);
-        } catch (IOException ex) {
-          Logger.writeLn("Encoding Error!");
-          Logger.writeErrorLn(ex);
-          System.exit(1);
-        }
-        break;
-      }
-      case DECODE: {
-        try {
-          return decode((ArrayList<Double>) data);
-        } catch (IOException ex) {
-          Logger.writeLn("Decoding Error!");
-          Logger.writeErrorLn(ex);
-          System.exit(1);
-        }
-        break;
-      }
+    try {
+      if (target == targetType.ENCODE)
+        return encode((ByteBuffer) data);
+      return decode((DoubleBuffer) data);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
     }
-    return null;
   }
 
   /**
    * Encode bytes array
    * @param data
-   * @return ArrayList<Double>: array of encoded double
+   * @return double[]: array of encoded doubles
    * @throws IOException
    */
-  private ArrayList<Double> encode(ArrayList<Byte> data) throws IOException {
-    Logger.writeLn("Encoding...");
-    defineSegments();
+  private double[] encode(ByteBuffer data) throws IOException {
+    Logger.debug("Encoding...");
+    if (segs == null)
+      defineSegments();
+
+    int size = (dataLen + numSeq - 1) / numSeq;
+    doublesOut = outputDoubles(size);
+
+    codeRange(data, size);
+    dataOutLen = size;
+    Logger.debug("Encoding finished!!");
+    return doublesOut;
+  }
 
-    int size = (int) Math.ceil((double) data.size() / numSeq);
-    ArrayList<Double> newData = new ArrayList<>();
+  /**
+   * Encode sequences of block from 'from' to 'to' into doublesOut
+   * @param data
+   * @param from: index of first sequence
+   * @param to: index after last sequence
+   * @throws UncheckedIOException if letter is not in probability table
+   */
+  private void encodeRange(ByteBuffer data, int from, int to) {
+    Kernels.Vector kernels = Kernels.encoder();
+    // vector kernel codes whole groups of sequences, the rest is coded by scalar loop
+    if (kernels != null)
+      from = kernels.encode(data, dataLen, numSeq, segs, probability, doublesOut, from, to);
+    encodeScalar(data, dataLen, numSeq, segs, probability, doublesOut, from, to);
+  }
 
-    for (int i = 0; i < size; i++) {
+  /**
+   * Scalar loop of encodeRange, see Kernels.Vector.encode
+   * @param data: block
+   * @param dataLen: number of bytes in block
+   * @param numSeq: length of sequence
+   * @param s
+   * @param probability
+   * @param out: middles of intervals, indexed by sequence
+   * @param from: index of first sequence
+   * @param to: index after last sequence
+   * @throws UncheckedIOException if letter is not in probability table
+   */
+  static void encodeScalar(ByteBuffer data, int dataLen, int numSeq, Segments s, double[] probability,
+                           double[] out, int from, int to) {
+    for (int i = from; i < to; i++) {
       double left = 0, right = 1;
       for (int j = 0; j < numSeq; j++) {
         if (i * numSeq + j >= dataLen)
           break;
-        byte ch = data.get(i * numSeq + j);
-        double newR = left + (right - left) * segs.get(ch).right;
-        double newL = left + (right - left) * segs.get(ch).left;
+        int ch = data.get(i * numSeq + j) & 0xFF;
+        if (probability[ch] <= 0)
+          throw missingLetter(ch);
+        double newR = left + (right - left) * s.letterRight[ch];
+        double newL = left + (right - left) * s.letterLeft[ch];
         right = newR;
         left = newL;
       }
-      newData.add((left + right) / 2);
+      out[i] = (left + right) / 2;
     }
-    Logger.writeLn("Encoding finished!!");
-    return newData;
   }
 
   /**
-   * Decode from array of doubles
-   * @param data
-   * @return ArrayList<Byte>: decoded byte array
-   * @throws IOException
+   * Error of letter not in probability table, thrown from code(...) of encoder
+   * @param ch: unsigned letter
+   * @return UncheckedIOException: error, conveyor reports it as its error
    */
-  private ArrayList<Byte> decode(ArrayList<Double> data) throws IOException {
-    Logger.writeLn("Decoding...");
-    defineSegments();
-
-    ArrayList<Byte> newData = new ArrayList<>(numSeq * data.size());
-
-    for (int i = 0; i < data.size(); i++) {
-      double code = data.get(i);
-      for (int j = 0; j < numSeq; j++) {
-        for (Map.Entry<Byte, Segment> entry : segs.entrySet())
-          if (code >= entry.getValue().left && code < entry.getValue().right) {
-            newData.add(numSeq * i + j, entry.getKey());
-            code = (code - entry.getValue().left) / (entry.getValue().right - entry.getValue().left);
-            break;
-          }
-      }
-    }
-    Logger.writeLn("Decoding finished!!!");
-    return newData;
+  static UncheckedIOException missingLetter(int ch) {
+    return new UncheckedIOException(new IOException("Letter " + (byte) ch + " is not in probability table"));
   }
 
   /**
-   * Set config file to executor
-   * @param configFile
+   * Decode from array of doubles
+   * @param data
+   * @return byte[]: decoded byte array
    * @throws IOException
    */
-  @Override
-  public void setConfigFile(String configFile) throws IOException {
-    setConfigs(configFile);
-  }
+  private byte[] decode(DoubleBuffer data) throws IOException {
+    Logger.debug("Decoding...");
+    if (segs == null)
+      defineSegments();
 
-  /**
-   * Set consumer to executor
-   * @param consumer
-   * @throws IOException
-   */
-  @Override
-  public void setConsumer(Executor consumer) throws IOException {
-    consumers.add(consumer);
-    boolean canCommunicate = false;
-
-    for (adapter.AdapterType type : consumer.getReadableTypes()) {
-      if (writableTypes.contains(type)) {
-        canCommunicate = true;
-        switch (type) {
-          case BYTE: {
-            consumer.setAdapter(this, new ByteAdapterClass(), AdapterType.BYTE);
-            break;
-          }
-          case DOUBLE: {
-            consumer.setAdapter(this, new DoubleAdapterClass(), AdapterType.DOUBLE);
-            break;
-          }
-        }
-      }
-    }
+    bytesOut = outputBytes(numSeq * dataLen);
 
-    if (!canCommunicate) {
-      throw new IOException("Can't communicate, wrong transporter structure");
-    }
+    codeRange(data, dataLen);
+    dataOutLen = numSeq * dataLen;
+    Logger.debug("Decoding finished!!!");
+    return bytesOut;
   }
 
   /**
-   * Set adapter to executor
-   * @param provider
-   * @param adapter
-   * @param typeOfAdapter
-   */
-  @Override
-  public void setAdapter(Executor provider, Object adapter, AdapterType typeOfAdapter) {
-    adapters.put(provider, new Pair<>(adapter, typeOfAdapter));
-  }
-
-  /**
-   * Get readable types from consumer
-   * @return ArrayList<AdapterType>: readable types
-   */
-  @Override
-  public ArrayList<AdapterType> getReadableTypes() {
-    return readableTypes;
-  }
-
-  /**
-   * Set output stream
-   * @param output
+   * Decode doubles of block from 'from' to 'to' into bytesOut
+   * @param data
+   * @param from: index of first double
+   * @param to: index after last double
+   * @throws UncheckedIOException if code is out of segments of probability table
    */
-  @Override
-  public void setOutput(DataOutputStream output) {
-    outputFile = output;
+  private void decodeRange(DoubleBuffer data, int from, int to) {
+    Segments s = segs;
+    for (int i = from; i < to; i++) {
+      double code = data.get(i);
+      for (int j = 0; j < numSeq; j++) {
+        int idx = s.find(code);
+        if (idx < 0)
+          throw new UncheckedIOException(new IOException("Wrong code " + data.get(i) + " of sequence " + i
+              + ": letter " + j + " is out of probability table"));
+        bytesOut[numSeq * i + j] = s.letter[idx];
+        code = (code - s.left[idx]) * s.widthInv[idx];
+      }
+    }
   }
 
   /**
-   * Set input stream
-   * @param input
+   * Code all sequences of block, in parallel if several threads are set.
+   * Every sequence is written to its own place, so output does not depend on number of threads
+   * @param data
+   * @param size: number of sequences
    */
-  @Override
-  public void setInput(DataInputStream input) {
-    inputFile = input;
+  private void codeRange(Object data, int size) {
+    if (threads == 1 || size <= minTaskGroups) {
+      new RangeTask(data, 0, size, size).compute();
+      return;
+    }
+    if (pool == null)
+      pool = new ForkJoinPool(threads);
+    int minSize = Math.max(minTaskGroups, size / (threads * 4));
+    pool.invoke(new RangeTask(data, 0, size, minSize));
   }
 
   /**
-   * Run function
+   * Shut down pool of parallel coding, its threads do not outlive conveyor
    */
   @Override
-  public void run() throws IOException {
-    while (inputFile.available() > 0) {
-      byte[] data = new byte[blockSize];
-      if (inputFile.available() > blockSize)
-        dataLen = blockSize;
-      else
-        dataLen = inputFile.available();
-      inputFile.read(data, 0, dataLen);
-      ArrayList<Byte> bdata = new ArrayList<>();
-      for (int i = 0; i < data.length; i++)
-        bdata.add(data[i]);
-      dataOut = code(bdata);
-      if (!consumers.isEmpty()) {
-        for (Executor consumer : consumers)
-          consumer.put(this);
-      } else {
-        outputFile.write((byte[]) dataOut);
-      }
+  public void complete() {
+    if (pool != null) {
+      pool.shutdown();
+      pool = null;
     }
   }
 
   /**
-   * Transfer data to consumers
-   * @param provider
-   * @throws IOException
+   * Provider of 'arithmetic' executor type
    */
-  @Override
-  public void put(Executor provider) throws IOException {
-    Object currentAdapter = adapters.get(provider).getKey();
-    AdapterType type = adapters.get(provider).getValue();
+  public static class Provider implements ExecutorProvider {
+    @Override
+    public String getType() {
+      return "arithmetic";
+    }
 
-    switch (type) {
-      case BYTE: {
-        ArrayList<Byte> bdata = new ArrayList<>();
-        ByteAdapterClass byteAdapter = (ByteAdapterClass) currentAdapter;
-        Byte cur;
-
-        while ((cur = byteAdapter.getNextByte()) != null) {
-          bdata.add(cur);
-          // reading by blocks
-          while ((cur = byteAdapter.getNextByte()) != null && bdata.size() < blockSize) {
-            bdata.add(cur);
-          }
-          dataLen = bdata.size();
-          dataOut = code(bdata);
-          if (!consumers.isEmpty()) {
-            for (Executor consumer : consumers)
-              consumer.put(this);
-          } else {
-            for (int i = 0; i < ((ArrayList<Double>) dataOut).size(); i++) {
-              outputFile.writeDouble(((ArrayList<Double>) dataOut).get(i).doubleValue());
-            }
-          }
-          if (cur == null)
-            break;
-        }
-        break;
-      }
-      case DOUBLE: {
-        ArrayList<Double> ddata = new ArrayList<>();
-        DoubleAdapterClass doubleAdapter = (DoubleAdapterClass) currentAdapter;
-        Double cur;
-
-        while ((cur = doubleAdapter.getNextDouble()) != null) {
-          ddata.add(cur);
-          // reading bu blocks
-          while ((cur = doubleAdapter.getNextDouble()) != null && ddata.size() < blockSize) {
-            ddata.add(cur);
-          }
-          dataLen = ddata.size();
-          dataOut = code(ddata);
-          if (!consumers.isEmpty()) {
-            for (Executor consumer : consumers)
-              consumer.put(this);
-          } else {
-            for (int i = 0; i < ((ArrayList<Byte>) dataOut).size(); i++) {
-              outputFile.write(((ArrayList<Byte>) dataOut).get(i).byteValue());
-            }
-          }
-          if (cur == null)
-            break;
-        }
-        break;
-      }
-      default: {
-        throw new IOException("Cant work with type: " + type);
-      }
+    @Override
+    public Executor create(String inputFileName) throws IOException {
+      return new Encoder(inputFileName);
     }
   }
 }
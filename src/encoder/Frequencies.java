@@ -0,0 +1,27 @@
+package encoder;
+
+/**
+ * Immutable quantized frequencies of range coder with their prefix sums and symbol lookup,
+ * shared by all coders of the same model
+ */
+final class Frequencies {
+  final int[] freq;      // Frequencies summing to 2^BinaryModel.totalBits, indexed by unsigned byte
+  final int[] cumFreq;   // Prefix sums of freq
+  final byte[] symbolOf; // Symbol for every cumulative frequency value
+
+  /**
+   * Build tables
+   * @param frequencies: 256 frequencies summing to 2^BinaryModel.totalBits, not changed later
+   */
+  Frequencies(int[] frequencies) {
+    int total = 1 << BinaryModel.totalBits;
+    freq = frequencies;
+    cumFreq = new int[257];
+    symbolOf = new byte[total];
+    for (int i = 0; i < 256; i++) {
+      cumFreq[i + 1] = cumFreq[i] + freq[i];
+      for (int c = cumFreq[i]; c < cumFreq[i + 1]; c++)
+        symbolOf[c] = (byte) i;
+    }
+  }
+}
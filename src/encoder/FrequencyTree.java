@@ -0,0 +1,102 @@
+package encoder;
+
+/**
+ * Adaptive frequencies of 256 letters in Fenwick tree: prefix sums, updates and
+ * search by cumulative frequency take O(log 256)
+ */
+class FrequencyTree {
+  private static final int letters = 256;
+  private final int[] freq;   // Frequency of every letter
+  private final int[] tree;   // Fenwick tree over freq, 1-based
+  private final int increment, limit;
+  private int total;
+
+  /**
+   * Tree of uniform frequencies
+   * @param increment: added to frequency of every coded letter
+   * @param limit: frequencies are halved when their sum exceeds limit
+   */
+  FrequencyTree(int increment, int limit) {
+    this.increment = increment;
+    this.limit = limit;
+    freq = new int[letters];
+    tree = new int[letters + 1];
+    for (int i = 0; i < letters; i++)
+      freq[i] = 1;
+    rebuild();
+  }
+
+  /**
+   * Get frequency of letter
+   * @param letter: unsigned byte
+   * @return int: frequency
+   */
+  int freq(int letter) {
+    return freq[letter];
+  }
+
+  /**
+   * Get sum of frequencies of letters less than given one
+   * @param letter: unsigned byte
+   * @return int: cumulative frequency
+   */
+  int cumulative(int letter) {
+    int sum = 0;
+    for (int i = letter; i > 0; i -= i & -i)
+      sum += tree[i];
+    return sum;
+  }
+
+  /**
+   * Get sum of all frequencies
+   * @return int: total
+   */
+  int total() {
+    return total;
+  }
+
+  /**
+   * Find letter which interval contains cumulative frequency value
+   * @param value: in [0, total)
+   * @return int: letter
+   */
+  int find(int value) {
+    int pos = 0;
+    for (int step = letters; step > 0; step >>= 1) {
+      if (pos + step <= letters && tree[pos + step] <= value) {
+        pos += step;
+        value -= tree[pos];
+      }
+    }
+    return pos;
+  }
+
+  /**
+   * Count coded letter
+   * @param letter: unsigned byte
+   */
+  void update(int letter) {
+    freq[letter] += increment;
+    total += increment;
+    for (int i = letter + 1; i <= letters; i += i & -i)
+      tree[i] += increment;
+    if (total > limit) {
+      for (int i = 0; i < letters; i++)
+        freq[i] = (freq[i] + 1) >>> 1;
+      rebuild();
+    }
+  }
+
+  private void rebuild() {
+    total = 0;
+    for (int i = 1; i <= letters; i++) {
+      tree[i] = freq[i - 1];
+      total += freq[i - 1];
+    }
+    for (int i = 1; i <= letters; i++) {
+      int parent = i + (i & -i);
+      if (parent <= letters)
+        tree[parent] += tree[i];
+    }
+  }
+}
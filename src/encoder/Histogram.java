@@ -0,0 +1,140 @@
+package encoder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Counting of letters in files and buffers
+ */
+public final class Histogram {
+  private static final long mapChunk = 1L << 26; // Bytes mapped at once
+  private static final int copyChunk = 1 << 16;  // Bytes copied from mapped buffer at once
+  private static final long minSplit = 1L << 24; // Minimal part of file counted by one thread
+  private static final String stdStream = "-";   // Name of standard input in place of file
+
+  private Histogram() {
+  }
+
+  /**
+   * Count letters of file
+   * @param fileName
+   * @param threads: number of threads splitting the file
+   * @return long[]: number of every letter, indexed by unsigned byte
+   * @throws IOException, also if input is standard input, which can be read only once
+   */
+  public static long[] countFile(String fileName, int threads) throws IOException {
+    if (stdStream.equals(fileName))
+      throw new IOException("Letters of standard input can't be counted before coding, table_method read|header expected");
+    try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+      final FileChannel channel = file.getChannel();
+      long size = channel.size();
+      int parts = (int) Math.max(1, Math.min(threads, size / minSplit));
+      if (parts == 1)
+        return countRange(channel, 0, size);
+
+      ExecutorService pool = Executors.newFixedThreadPool(parts);
+      try {
+        ArrayList<Future<long[]>> results = new ArrayList<>();
+        long step = (size + parts - 1) / parts;
+        for (long from = 0; from < size; from += step) {
+          final long start = from, end = Math.min(size, from + step);
+          results.add(pool.submit(() -> countRange(channel, start, end)));
+        }
+        long[] counts = new long[256];
+        for (Future<long[]> result : results) {
+          long[] part = result.get();
+          for (int i = 0; i < 256; i++)
+            counts[i] += part[i];
+        }
+        return counts;
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Counting of letters was interrupted", ex);
+      } catch (ExecutionException ex) {
+        if (ex.getCause() instanceof IOException)
+          throw (IOException) ex.getCause();
+        throw new IOException("Counting of letters failed", ex.getCause());
+      } finally {
+        pool.shutdownNow();
+      }
+    }
+  }
+
+  /**
+   * Count letters of part of file, mapping it by chunks
+   * @param channel
+   * @param from: first byte
+   * @param to: byte after last one
+   * @return long[]: number of every letter
+   * @throws IOException
+   */
+  private static long[] countRange(FileChannel channel, long from, long to) throws IOException {
+    long[][] tables = new long[4][256];
+    byte[] buf = new byte[copyChunk];
+    for (long pos = from; pos < to; pos += mapChunk) {
+      MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(mapChunk, to - pos));
+      while (map.hasRemaining()) {
+        int n = Math.min(buf.length, map.remaining());
+        map.get(buf, 0, n);
+        count(buf, 0, n, tables);
+      }
+    }
+    return merge(tables);
+  }
+
+  /**
+   * Count letters of array into four tables, vector kernel is used if it is available
+   * @param data
+   * @param off
+   * @param len
+   * @param tables: four tables of 256 counters
+   */
+  public static void count(byte[] data, int off, int len, long[][] tables) {
+    Kernels.Vector kernels = Kernels.vector();
+    if (kernels != null)
+      kernels.count(data, off, len, tables);
+    else
+      countScalar(data, off, len, tables);
+  }
+
+  /**
+   * Count letters of array into four tables, neighbour bytes go to different tables
+   * so repeated letters do not wait for each other's increment
+   * @param data
+   * @param off
+   * @param len
+   * @param tables: four tables of 256 counters
+   */
+  public static void countScalar(byte[] data, int off, int len, long[][] tables) {
+    long[] c0 = tables[0], c1 = tables[1], c2 = tables[2], c3 = tables[3];
+    int i = off, end = off + len;
+    for (; i + 3 < end; i += 4) {
+      c0[data[i] & 0xFF]++;
+      c1[data[i + 1] & 0xFF]++;
+      c2[data[i + 2] & 0xFF]++;
+      c3[data[i + 3] & 0xFF]++;
+    }
+    for (; i < end; i++)
+      c0[data[i] & 0xFF]++;
+  }
+
+  /**
+   * Sum tables filled by count(...)
+   * @param tables
+   * @return long[]: number of every letter
+   */
+  public static long[] merge(long[][] tables) {
+    long[] counts = new long[256];
+    for (long[] table : tables)
+      for (int i = 0; i < 256; i++)
+        counts[i] += table[i];
+    return counts;
+  }
+}
@@ -0,0 +1,108 @@
+package encoder;
+
+import logger.Logger;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Optional vector kernels of hot loops of coders. Vector implementation, encoder.VectorKernels, is compiled
+ * from directory 'vector' by profile of JDK 17+ and works only if module jdk.incubator.vector is added at run time
+ * (java --add-modules jdk.incubator.vector). Otherwise, or with -Dconveyor.kernels=scalar, scalar loops are used.
+ * Encode kernel is used only with -Dconveyor.kernels=vector: by encoder.KernelBenchmark it clearly beats
+ * scalar loop only for short sequences, check it on the machine first. Results of vector kernels are bit-identical to results of scalar loops
+ */
+public final class Kernels {
+  private static final String vectorClass = "encoder.VectorKernels";
+  private static final String property = "conveyor.kernels";    // auto|scalar|vector
+  private static final Vector vector = load();
+
+  /**
+   * Kernels implemented with vector instructions
+   */
+  interface Vector {
+    /**
+     * Check if hardware has vectors wide enough for kernels
+     * @return boolean: true if kernels are faster than scalar loops
+     */
+    boolean isSupported();
+
+    /**
+     * Describe vectors used
+     * @return String: description for log
+     */
+    String describe();
+
+    /**
+     * Count letters of array, see Histogram.count
+     * @param data
+     * @param off
+     * @param len
+     * @param tables: four tables of 256 counters, counts are added to any of them
+     */
+    void count(byte[] data, int off, int len, long[][] tables);
+
+    /**
+     * Encode whole groups of sequences, every lane narrows interval of one sequence, see Encoder.encodeRange
+     * @param data: block
+     * @param dataLen: number of bytes in block
+     * @param numSeq: length of sequence
+     * @param segs
+     * @param probability: letter with probability <= 0 is an error
+     * @param out: middles of intervals, indexed by sequence
+     * @param from: index of first sequence
+     * @param to: index after last sequence
+     * @return int: index of first sequence not encoded, left to scalar loop
+     * @throws UncheckedIOException if letter is not in probability table, see Encoder.missingLetter
+     */
+    int encode(ByteBuffer data, int dataLen, int numSeq, Segments segs, double[] probability, double[] out, int from, int to);
+  }
+
+  private Kernels() {
+  }
+
+  /**
+   * Load vector kernels if they are built, enabled and supported
+   * @return Vector: kernels, null if scalar loops are used
+   */
+  private static Vector load() {
+    if ("scalar".equals(System.getProperty(property)))
+      return null;
+    try {
+      Vector kernels = (Vector) Class.forName(vectorClass).getDeclaredConstructor().newInstance();
+      if (!kernels.isSupported()) {
+        Logger.debug("Vector kernels are not supported by hardware, scalar loops are used");
+        return null;
+      }
+      Logger.debug("Vector kernels: " + kernels.describe());
+      return kernels;
+    } catch (ReflectiveOperationException | LinkageError ex) {
+      // class is not built or module jdk.incubator.vector is not added
+      Logger.debug("Vector kernels are not available, scalar loops are used: " + ex);
+      return null;
+    }
+  }
+
+  /**
+   * Get vector kernels
+   * @return Vector: kernels, null if scalar loops are used
+   */
+  static Vector vector() {
+    return vector;
+  }
+
+  /**
+   * Get vector kernels to encode with, they are selected explicitly
+   * @return Vector: kernels, null if scalar loop is used
+   */
+  static Vector encoder() {
+    return "vector".equals(System.getProperty(property)) ? vector : null;
+  }
+
+  /**
+   * Check if vector kernels are used
+   * @return boolean: true if vector kernels are used
+   */
+  public static boolean isVectorized() {
+    return vector != null;
+  }
+}
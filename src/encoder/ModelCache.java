@@ -0,0 +1,110 @@
+package encoder;
+
+import logger.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Process-wide cache of table models shared by all coders and conveyors.
+ * Key is canonical path, modification time and CRC32 of table content, so a rewritten table
+ * is read again. The least recently used model is evicted when cache is full
+ */
+public final class ModelCache {
+  private static final String splitDelim = " |:|="; // Delimiter in table file
+  private static int capacity = 64;                 // Maximal number of cached models
+  private static long hits, misses;
+  private static final LinkedHashMap<String, TableModel> models = new LinkedHashMap<String, TableModel>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, TableModel> eldest) {
+      return size() > capacity;
+    }
+  };
+
+  private ModelCache() {
+  }
+
+  /**
+   * Set maximal number of cached models
+   * @param newCapacity: positive number of models
+   */
+  public static synchronized void setCapacity(int newCapacity) {
+    if (newCapacity < 1)
+      throw new IllegalArgumentException("Model cache capacity must be positive");
+    capacity = newCapacity;
+    while (models.size() > capacity)
+      models.remove(models.keySet().iterator().next());
+  }
+
+  public static synchronized long getHits() {
+    return hits;
+  }
+
+  public static synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Get model of table file
+   * @param tableFile
+   * @param binary: table is in BinaryModel format
+   * @return TableModel: shared model, null if text table has lines other than 'num' and 'prob'
+   * @throws IOException in case of wrong table
+   */
+  static TableModel load(String tableFile, boolean binary) throws IOException {
+    File file = new File(tableFile).getCanonicalFile();
+    long modified = file.lastModified();
+    byte[] content = Files.readAllBytes(file.toPath());
+    CRC32 crc = new CRC32();
+    crc.update(content, 0, content.length);
+    String key = file.getPath() + '\n' + modified + '\n' + crc.getValue() + '\n' + binary;
+
+    synchronized (ModelCache.class) {
+      TableModel model = models.get(key);
+      if (model != null) {
+        hits++;
+        Logger.debug("Model cache hit: " + tableFile);
+        return model;
+      }
+      misses++;
+    }
+    TableModel model = binary ? new TableModel(BinaryModel.fromBytes(content, tableFile)) : parseText(content);
+    if (model == null)
+      return null;
+    synchronized (ModelCache.class) {
+      // another coder may have read the same table meanwhile, keep the first model
+      TableModel cached = models.get(key);
+      if (cached != null)
+        return cached;
+      models.put(key, model);
+    }
+    return model;
+  }
+
+  /**
+   * Parse text table
+   * @param content
+   * @return TableModel: model, null if table has lines other than 'num' and 'prob'
+   */
+  private static TableModel parseText(byte[] content) {
+    double[] probability = new double[256];
+    int num = 0;
+    for (String line : new String(content, StandardCharsets.UTF_8).split("\n")) {
+      if (line.isEmpty())
+        continue;
+      String[] words = line.split(splitDelim);
+      if (words.length == 2 && words[0].equals("num"))
+        num = Integer.parseInt(words[1]);
+      else if (words.length == 3 && words[0].equals("prob"))
+        probability[Integer.parseInt(words[1]) & 0xFF] = Double.parseDouble(words[2]);
+      else
+        return null;
+    }
+    return new TableModel(probability, num);
+  }
+}
@@ -0,0 +1,375 @@
+package encoder;
+
+import executer.AbstractExecutor;
+import io.ChannelOutput;
+import logger.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Base of coders of probability model: arithmetic, range and tANS coders.
+ * Parses configs common to them and sets the model from table file, header of input or letters
+ * of input file, writes table file and header of output. Coders parse their own configs and build
+ * their tables from the model through hooks
+ */
+abstract class ModelCoder extends AbstractExecutor {
+  private static final String splitDelim = " |:|="; // Delimiter in config file
+  static final String delim = " ";                  // Delimiter in table of probabilities file
+  static final String endl = "\n";
+  protected final String inputFileName;
+  protected String tableFile;
+  protected double[] probability;                   // Probabilities of letters, indexed by unsigned byte
+  protected int threads = 1;                        // Number of threads counting probabilities
+  protected boolean binaryTable;                    // Table file is in BinaryModel format
+  protected boolean embedHeader;                    // Write BinaryModel at the beginning of output
+  protected boolean modelFromHeader;                // Read BinaryModel from the beginning of input
+  protected targetType target = targetType.ENCODE;
+
+  protected enum targetType {
+    ENCODE,
+    DECODE
+  }
+
+  protected enum tableMethodType {
+    READ,     // read probabilities from table
+    WRITE,    // set probabilities to table file
+    ADAPTIVE, // no table, probabilities are learned while coding
+    CONTEXT,  // no table, probabilities in context of previous letters are learned while coding
+    HEADER    // read probabilities from header of input
+  }
+
+  private enum tableFormatType {
+    TEXT,   // 'prob' lines
+    BINARY  // BinaryModel
+  }
+
+  private enum headerType {
+    NONE,
+    EMBED   // write model at the beginning of output
+  }
+
+  private enum confTypes {
+    BLOCK_SIZE,
+    PROBABILITY,
+    TARGET,
+    TABLE_FILE,
+    TABLE_METHOD,
+    THREADS,
+    TYPE,
+    TABLE_FORMAT,
+    HEADER
+  }
+
+  private static final Map<String, targetType> tMap;        // Map target name to target type
+  private static final Map<String, confTypes> configMap;    // Map config name to config type
+  private static final Map<String, tableMethodType> metMap; // Map table method name to table method type
+  private static final Map<String, tableFormatType> fmtMap; // Map table format name to table format type
+  private static final Map<String, headerType> headerMap;   // Map header name to header type
+
+  static {
+    tMap = new HashMap<>();
+    tMap.put("encode", targetType.ENCODE);
+    tMap.put("decode", targetType.DECODE);
+
+    configMap = new HashMap<>();
+    configMap.put("prob", confTypes.PROBABILITY);
+    configMap.put("target", confTypes.TARGET);
+    configMap.put("block", confTypes.BLOCK_SIZE);
+    configMap.put("table", confTypes.TABLE_FILE);
+    configMap.put("table_method", confTypes.TABLE_METHOD);
+    configMap.put("threads", confTypes.THREADS);
+    configMap.put("type", confTypes.TYPE);
+    configMap.put("table_format", confTypes.TABLE_FORMAT);
+    configMap.put("header", confTypes.HEADER);
+
+    metMap = new HashMap<>();
+    metMap.put("read", tableMethodType.READ);
+    metMap.put("write", tableMethodType.WRITE);
+    metMap.put("adaptive", tableMethodType.ADAPTIVE);
+    metMap.put("context", tableMethodType.CONTEXT);
+    metMap.put("header", tableMethodType.HEADER);
+
+    fmtMap = new HashMap<>();
+    fmtMap.put("text", tableFormatType.TEXT);
+    fmtMap.put("binary", tableFormatType.BINARY);
+
+    headerMap = new HashMap<>();
+    headerMap.put("none", headerType.NONE);
+    headerMap.put("embed", headerType.EMBED);
+  }
+
+  /**
+   * Coder constructor
+   * @param inFile: input file name for setting probability table
+   */
+  ModelCoder(String inFile) {
+    inputFileName = inFile;
+    probability = new double[256];
+  }
+
+  /**
+   * Set config of coder, configs common to coders are set by ModelCoder
+   * @param words: name and arguments of config
+   * @param confFile
+   * @param line
+   * @return boolean: false if config is unknown
+   * @throws IOException in case of wrong arguments
+   */
+  protected abstract boolean setConfig(String[] words, String confFile, String line) throws IOException;
+
+  /**
+   * Set readable and writable types once target is set
+   */
+  protected abstract void setTypes();
+
+  /**
+   * Set table method other than read, write and header
+   * @param method
+   * @return boolean: false if coder does not support method
+   */
+  protected boolean setMethod(tableMethodType method) {
+    return false;
+  }
+
+  /**
+   * Get names of supported table methods
+   * @return String: names for error message
+   */
+  protected String methods() {
+    return "read|write|header";
+  }
+
+  /**
+   * Build tables of coder from probabilities read from text table or counted in input file
+   * @throws IOException if probabilities are wrong
+   */
+  protected abstract void useProbabilities() throws IOException;
+
+  /**
+   * Use tables of model of table file shared by coders, probabilities and block are already set
+   * @param model
+   * @throws IOException if probabilities are wrong
+   */
+  protected abstract void useModel(TableModel model) throws IOException;
+
+  /**
+   * Build tables of coder from binary model, probabilities and block are already set
+   * @param model
+   * @throws IOException if frequencies are wrong
+   */
+  protected abstract void useModel(BinaryModel model) throws IOException;
+
+  /**
+   * Get model written to binary table file and header of output
+   * @return BinaryModel: quantized model, null if coder has no static model
+   * @throws IOException if there are no probabilities
+   */
+  protected abstract BinaryModel getModel() throws IOException;
+
+  /**
+   * Write configs of coder to text table file before probabilities
+   * @param writer
+   * @throws IOException
+   */
+  protected void writeConfigs(Writer writer) throws IOException {
+  }
+
+  /**
+   * Set coder configs from file, probabilities set by 'prob' lines are used at the end of file
+   * @param confFile
+   * @throws IOException
+   */
+  private void setConfigs(String confFile) throws IOException {
+    BufferedReader configReader = new BufferedReader(new FileReader(confFile));
+    boolean probabilities = false;
+    String line;
+    while ((line = configReader.readLine()) != null) {
+      String[] words = line.split(splitDelim);
+      if (words.length != 2 && words.length != 3)
+        throw new IOException("Wrong number of arguments in file: " + confFile + " at: " + line);
+      confTypes type = configMap.get(words[0]);
+      if (type == null) {
+        if (!setConfig(words, confFile, line))
+          throw new IOException("Unknown config: " + words[0] + " in file: " + confFile + " at: " + line);
+        continue;
+      }
+      switch (type) {
+        case PROBABILITY: {
+          probability[Integer.parseInt(words[1]) & 0xFF] = Double.parseDouble(words[2]);
+          probabilities = true;
+          break;
+        }
+        case TARGET: {
+          target = tMap.get(words[1]);
+          if (target == null)
+            throw new IOException("Unknown target: " + words[1] + " in file: " + confFile + " at: " + line + " decode|encode expected");
+          setTypes();
+          break;
+        }
+        case BLOCK_SIZE: {
+          blockSize = Integer.parseInt(words[1]);
+          break;
+        }
+        case TABLE_FILE: {
+          tableFile = words[1];
+          break;
+        }
+        case TABLE_METHOD: {
+          tableMethodType tm = metMap.get(words[1]);
+          if (tm == null)
+            throw new IOException("Unknown method: " + words[1] + " in file: " + confFile + " at: " + line + " " + methods() + " expected");
+          switch (tm) {
+            case READ: {
+              // models of the same table file are shared by all coders of the process
+              TableModel model = ModelCache.load(tableFile, binaryTable);
+              if (model == null) {
+                setConfigs(tableFile);
+              } else {
+                probability = model.probabilities();
+                if (blockSize == 0)
+                  blockSize = model.getBlock();
+                useModel(model);
+              }
+              break;
+            }
+            case WRITE: {
+              countProb();
+              useProbabilities();
+              writeDecodeConf();
+              break;
+            }
+            case HEADER: {
+              modelFromHeader = true;
+              break;
+            }
+            default: {
+              if (!setMethod(tm))
+                throw new IOException("Unknown method: " + words[1] + " in file: " + confFile + " at: " + line + " " + methods() + " expected");
+            }
+          }
+          break;
+        }
+        case THREADS: {
+          threads = Integer.parseInt(words[1]);
+          if (threads < 1)
+            throw new IOException("Number of threads must be positive in file: " + confFile + " at: " + line);
+          break;
+        }
+        case TYPE: {
+          // type of executor is chosen by transporter
+          break;
+        }
+        case TABLE_FORMAT: {
+          tableFormatType fmt = fmtMap.get(words[1]);
+          if (fmt == null)
+            throw new IOException("Unknown table format: " + words[1] + " in file: " + confFile + " at: " + line + " text|binary expected");
+          binaryTable = fmt == tableFormatType.BINARY;
+          break;
+        }
+        case HEADER: {
+          headerType ht = headerMap.get(words[1]);
+          if (ht == null)
+            throw new IOException("Unknown header: " + words[1] + " in file: " + confFile + " at: " + line + " none|embed expected");
+          embedHeader = ht == headerType.EMBED;
+          break;
+        }
+      }
+    }
+    configReader.close();
+    if (probabilities)
+      useProbabilities();
+    Logger.writeLn("Configs have been set");
+  }
+
+  /**
+   * Count probabilities of letters in input file
+   * @throws IOException
+   */
+  private void countProb() throws IOException {
+    long[] counts = Histogram.countFile(inputFileName, threads);
+    long textLen = 0;
+    for (long count : counts)
+      textLen += count;
+
+    // empty input has no letters to code, uniform table keeps tables of every coder valid
+    for (int i = 0; i < 256; i++)
+      probability[i] = textLen == 0 ? 1.0 / 256 : (double) counts[i] / textLen;
+    Logger.writeLn("Probability have been counted");
+  }
+
+  /**
+   * Write table file
+   * @throws IOException
+   */
+  private void writeDecodeConf() throws IOException {
+    if (binaryTable) {
+      getModel().writeFile(tableFile);
+      return;
+    }
+    BufferedWriter encWriter = new BufferedWriter(new FileWriter(tableFile));
+    writeConfigs(encWriter);
+    for (int i = 0; i < 256; i++)
+      if (probability[i] > 0)
+        encWriter.write("prob" + delim + (byte) i + delim + probability[i] + endl);
+    encWriter.close();
+  }
+
+  /**
+   * Set probabilities, block and tables of coder from binary model
+   * @param model
+   * @throws IOException if frequencies are wrong
+   */
+  protected void applyModel(BinaryModel model) throws IOException {
+    probability = model.probabilities();
+    if (blockSize == 0)
+      blockSize = model.getBlock();
+    useModel(model);
+  }
+
+  /**
+   * Set config file to executor
+   * @param configFile
+   * @throws IOException
+   */
+  @Override
+  public void setConfigFile(String configFile) throws IOException {
+    setConfigs(configFile);
+  }
+
+  /**
+   * Set output stream, model is written first if header is embedded.
+   * Coder codes with the written model, so decoder reading it from header gets the same output
+   * @param output
+   * @throws IOException in case of error of building or writing model
+   */
+  @Override
+  public void setOutput(ChannelOutput output) throws IOException {
+    super.setOutput(output);
+    if (!embedHeader || target != targetType.ENCODE)
+      return;
+    BinaryModel model = getModel();
+    if (model == null) {
+      Logger.writeLn(getClass().getSimpleName() + " has no static model to embed, header skipped");
+      return;
+    }
+    applyModel(model);
+    model.write(output);
+  }
+
+  /**
+   * Run function, model is read first if it is in header of input
+   */
+  @Override
+  public void run() throws IOException {
+    if (modelFromHeader)
+      applyModel(BinaryModel.read(inputFile));
+    super.run();
+  }
+}
@@ -0,0 +1,333 @@
+package encoder;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import adapter.AdapterType;
+import executer.Executor;
+import executer.ExecutorProvider;
+import logger.Logger;
+
+/**
+ * Executor coding bytes with integer range coder.
+ * Every block is coded as one frame: int number of symbols, int length of payload, payload.
+ * Block of decoder must not be less than block of encoder, frame of more symbols is rejected as broken.
+ * Probabilities are either static (prob table), adaptive or context modeled: both sides start from
+ * uniform frequencies and count every coded letter, so no table is needed. Context model conditions
+ * probabilities on one or two previous letters, see ContextModel
+ */
+public class RangeCoder extends ModelCoder {
+  private static final int totalBits = BinaryModel.totalBits; // Quantized frequencies sum to 2^totalBits
+  private static final int frameHeaderLen = 8;
+  private static final int adaptiveIncrement = 32;  // Added to frequency of coded letter in adaptive mode
+  private static final int adaptiveLimit = 1 << 16; // Adaptive frequencies are halved above this total
+  private Frequencies table;                        // Quantized frequencies, shared with coders of the same model
+  private FrequencyTree model;                      // Adaptive frequencies, null for static table
+  private ContextModel context;                     // Context model, null for other methods
+  private int order = 2;                            // Number of previous letters in context
+  private long memory = 16L << 20;                  // Memory limit of context tables in bytes
+  private byte[] bytesOut;                          // Output array of current block
+  private byte[] pending;                           // Decoder: received bytes of incomplete frame
+  private int pendingLen;
+  private final RangeWriter writer;
+  private final RangeReader reader;
+
+  private enum confTypes {
+    SEQUENCE_LEN,
+    ORDER,
+    MEMORY
+  }
+
+  private static final Map<String, confTypes> configMap;    // Map config name to config type
+
+  static {
+    configMap = new HashMap<>();
+    configMap.put("num", confTypes.SEQUENCE_LEN);
+    configMap.put("order", confTypes.ORDER);
+    configMap.put("memory", confTypes.MEMORY);
+  }
+
+  /**
+   * Range coder constructor
+   * @param inFile: input file name for setting probability table
+   */
+  public RangeCoder(String inFile) {
+    super(inFile);
+    writer = new RangeWriter();
+    reader = new RangeReader();
+  }
+
+  /**
+   * Set configs of range coder: 'order' and 'memory' of context model
+   * @param words
+   * @param confFile
+   * @param line
+   * @return boolean: false if config is unknown
+   * @throws IOException in case of wrong arguments
+   */
+  @Override
+  protected boolean setConfig(String[] words, String confFile, String line) throws IOException {
+    confTypes type = configMap.get(words[0]);
+    if (type == null)
+      return false;
+    switch (type) {
+      case SEQUENCE_LEN: {
+        // range coder codes whole block as one sequence
+        break;
+      }
+      case ORDER: {
+        order = Integer.parseInt(words[1]);
+        if (order != 1 && order != 2)
+          throw new IOException("Unknown order: " + words[1] + " in file: " + confFile + " at: " + line + " 1|2 expected");
+        break;
+      }
+      case MEMORY: {
+        memory = Long.parseLong(words[1]) << 20;
+        if (memory <= 0)
+          throw new IOException("Memory limit must be positive in file: " + confFile + " at: " + line);
+        break;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Range coder reads and writes bytes for both targets
+   */
+  @Override
+  protected void setTypes() {
+    readableTypes.add(AdapterType.BYTE_BLOCK);
+    readableTypes.add(AdapterType.BYTE_ARRAY);
+    readableTypes.add(AdapterType.BYTE);
+    writableTypes.add(AdapterType.BYTE_BLOCK);
+    writableTypes.add(AdapterType.BYTE_ARRAY);
+    writableTypes.add(AdapterType.BYTE);
+  }
+
+  /**
+   * Set adaptive or context model
+   * @param method
+   * @return boolean: false if method is not adaptive or context
+   */
+  @Override
+  protected boolean setMethod(tableMethodType method) {
+    switch (method) {
+      case ADAPTIVE: {
+        model = new FrequencyTree(adaptiveIncrement, adaptiveLimit);
+        return true;
+      }
+      case CONTEXT: {
+        context = new ContextModel(order, memory);
+        return true;
+      }
+      default:
+        return false;
+    }
+  }
+
+  @Override
+  protected String methods() {
+    return "read|write|adaptive|context|header";
+  }
+
+  /**
+   * Build frequency tables from probabilities
+   * @throws IOException if table is empty
+   */
+  @Override
+  protected void useProbabilities() throws IOException {
+    table = new Frequencies(BinaryModel.quantize(probability));
+  }
+
+  /**
+   * Use frequencies of cached table model
+   * @param model
+   * @throws IOException if table is empty
+   */
+  @Override
+  protected void useModel(TableModel model) throws IOException {
+    table = model.frequencies();
+  }
+
+  /**
+   * Set frequencies from binary model
+   * @param model
+   */
+  @Override
+  protected void useModel(BinaryModel model) {
+    table = new Frequencies(model.getFreq().clone());
+  }
+
+  /**
+   * Get binary model of static frequencies
+   * @return BinaryModel: null for adaptive and context methods
+   */
+  @Override
+  protected BinaryModel getModel() {
+    if (model != null || context != null)
+      return null;
+    return new BinaryModel(1, blockSize, table.freq);
+  }
+
+  /**
+   * Adaptive and context frequencies carry over between blocks
+   * @return boolean: true for adaptive and context methods
+   */
+  @Override
+  public boolean isStateful() {
+    return model != null || context != null;
+  }
+
+  /**
+   * Code data
+   * @param data: ByteBuffer, first dataLen elements are used
+   * @return Object: coded data, first dataOutLen elements are valid
+   * @throws UncheckedIOException in case of wrong data, conveyor reports it as its error
+   */
+  @Override
+  public Object code(Object data) {
+    try {
+      if (target == targetType.ENCODE)
+        return encode((ByteBuffer) data);
+      return decode((ByteBuffer) data);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /**
+   * Encode block into one frame
+   * @param data
+   * @return byte[]: frame
+   * @throws IOException if letter is not in probability table
+   */
+  private byte[] encode(ByteBuffer data) throws IOException {
+    Logger.debug("Encoding...");
+    int bound = frameHeaderLen + 2 * dataLen + 16;
+    bytesOut = outputBytes(bound);
+
+    writer.start(bytesOut, frameHeaderLen);
+    if (model != null) {
+      for (int i = 0; i < dataLen; i++) {
+        int ch = data.get(i) & 0xFF;
+        writer.encodeTotal(model.cumulative(ch), model.freq(ch), model.total());
+        model.update(ch);
+      }
+    } else if (context != null) {
+      for (int i = 0; i < dataLen; i++)
+        context.encode(writer, data.get(i) & 0xFF);
+    } else {
+      int[] freq = table.freq, cumFreq = table.cumFreq;
+      for (int i = 0; i < dataLen; i++) {
+        int ch = data.get(i) & 0xFF;
+        if (freq[ch] == 0)
+          throw new IOException("Letter " + data.get(i) + " is not in probability table");
+        writer.encode(cumFreq[ch], freq[ch], totalBits);
+      }
+    }
+    int end = writer.finish();
+    bytesOut = writer.getBuffer();
+    putInt(bytesOut, 0, dataLen);
+    putInt(bytesOut, 4, end - frameHeaderLen);
+    dataOutLen = end;
+    Logger.debug("Encoding finished!!");
+    return bytesOut;
+  }
+
+  /**
+   * Decode all complete frames received so far
+   * @param data
+   * @return byte[]: decoded bytes
+   * @throws IOException in case of broken frame
+   */
+  private byte[] decode(ByteBuffer data) throws IOException {
+    Logger.debug("Decoding...");
+    if (pending == null || pending.length < pendingLen + dataLen)
+      pending = Arrays.copyOf(pending == null ? new byte[0] : pending, Math.max(2 * (pendingLen + dataLen), 64));
+    data.duplicate().get(pending, pendingLen, dataLen);
+    pendingLen += dataLen;
+
+    int pos = 0;
+    dataOutLen = 0;
+    bytesOut = outputBytes(blockSize);
+    while (pendingLen - pos >= frameHeaderLen) {
+      int symbols = getInt(pending, pos);
+      int payload = getInt(pending, pos + 4);
+      if (symbols < 0 || payload < 0)
+        throw new IOException("Broken range coder frame");
+      // frame codes one block of encoder, count is checked before output grows by it
+      if (symbols > blockSize)
+        throw new IOException("Broken range coder frame of " + symbols + " symbols, block is " + blockSize);
+      if (pendingLen - pos - frameHeaderLen < payload)
+        break;
+      if (bytesOut.length < dataOutLen + symbols)
+        bytesOut = Arrays.copyOf(bytesOut, Math.max(dataOutLen + symbols, 2 * bytesOut.length));
+
+      int start = pos + frameHeaderLen;
+      reader.start(pending, start, start + payload);
+      if (model != null) {
+        for (int i = 0; i < symbols; i++) {
+          int ch = model.find(reader.decodeFreqTotal(model.total()));
+          reader.decode(model.cumulative(ch), model.freq(ch));
+          model.update(ch);
+          bytesOut[dataOutLen++] = (byte) ch;
+        }
+      } else if (context != null) {
+        for (int i = 0; i < symbols; i++)
+          bytesOut[dataOutLen++] = (byte) context.decode(reader);
+      } else {
+        int[] freq = table.freq, cumFreq = table.cumFreq;
+        byte[] symbolOf = table.symbolOf;
+        for (int i = 0; i < symbols; i++) {
+          byte ch = symbolOf[reader.decodeFreq(totalBits)];
+          reader.decode(cumFreq[ch & 0xFF], freq[ch & 0xFF]);
+          bytesOut[dataOutLen++] = ch;
+        }
+      }
+      pos = start + payload;
+    }
+    System.arraycopy(pending, pos, pending, 0, pendingLen - pos);
+    pendingLen -= pos;
+    Logger.debug("Decoding finished!!!");
+    return bytesOut;
+  }
+
+  /**
+   * Check that input ended with a whole frame
+   * @throws IOException if decoder holds bytes of incomplete frame
+   */
+  @Override
+  public void complete() throws IOException {
+    if (target == targetType.DECODE && pendingLen > 0)
+      throw new IOException("Truncated input: incomplete range coder frame of " + pendingLen + " bytes at the end");
+  }
+
+  private static void putInt(byte[] buf, int pos, int value) {
+    buf[pos] = (byte) (value >>> 24);
+    buf[pos + 1] = (byte) (value >>> 16);
+    buf[pos + 2] = (byte) (value >>> 8);
+    buf[pos + 3] = (byte) value;
+  }
+
+  private static int getInt(byte[] buf, int pos) {
+    return ((buf[pos] & 0xFF) << 24) | ((buf[pos + 1] & 0xFF) << 16) | ((buf[pos + 2] & 0xFF) << 8) | (buf[pos + 3] & 0xFF);
+  }
+
+  /**
+   * Provider of 'range' executor type
+   */
+  public static class Provider implements ExecutorProvider {
+    @Override
+    public String getType() {
+      return "range";
+    }
+
+    @Override
+    public Executor create(String inputFileName) {
+      return new RangeCoder(inputFileName);
+    }
+  }
+}
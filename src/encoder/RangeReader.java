@@ -0,0 +1,67 @@
+package encoder;
+
+/**
+ * Input side of integer range coder, see RangeWriter
+ */
+class RangeReader {
+  private static final long top = 1L << 24; // Range is renormalized when it falls below this value
+  private long code, range, r;
+  private byte[] buf;
+  private int pos, end;
+
+  /**
+   * Start decoding of sequence
+   * @param buffer
+   * @param position: first byte of sequence
+   * @param limit: position after last byte of sequence
+   */
+  void start(byte[] buffer, int position, int limit) {
+    buf = buffer;
+    pos = position;
+    end = limit;
+    code = 0;
+    range = 0xFFFFFFFFL;
+    for (int i = 0; i < 5; i++)
+      code = ((code << 8) | next()) & 0xFFFFFFFFL;
+  }
+
+  /**
+   * Get cumulative frequency of next symbol, decode(...) must follow
+   * @param totalBits: frequencies sum to 2^totalBits
+   * @return int: value in [0, 2^totalBits)
+   */
+  int decodeFreq(int totalBits) {
+    r = range >>> totalBits;
+    long value = code / r;
+    return (int) Math.min(value, (1L << totalBits) - 1);
+  }
+
+  /**
+   * Get cumulative frequency of next symbol, decode(...) must follow
+   * @param total: sum of all frequencies, at most 2^16
+   * @return int: value in [0, total)
+   */
+  int decodeFreqTotal(int total) {
+    r = range / total;
+    long value = code / r;
+    return (int) Math.min(value, total - 1);
+  }
+
+  /**
+   * Remove decoded symbol with frequency interval [cum, cum + freq) from coder state
+   * @param cum
+   * @param freq
+   */
+  void decode(int cum, int freq) {
+    code -= r * cum;
+    range = r * freq;
+    while (range < top) {
+      code = ((code << 8) | next()) & 0xFFFFFFFFL;
+      range <<= 8;
+    }
+  }
+
+  private int next() {
+    return pos < end ? buf[pos++] & 0xFF : 0;
+  }
+}
@@ -0,0 +1,96 @@
+package encoder;
+
+import java.util.Arrays;
+
+/**
+ * Output side of integer range coder: 32-bit range, 33-bit low with carry propagation
+ * and byte-wise renormalization
+ */
+class RangeWriter {
+  private static final long top = 1L << 24; // Range is renormalized when it falls below this value
+  private long low, range;
+  private int cache;                        // Last byte not written yet, may still get carry
+  private long cacheSize;                   // Number of pending bytes: cache and following 0xFF bytes
+  private byte[] buf;                       // Output buffer, grows if needed
+  private int pos;
+
+  /**
+   * Start new coded sequence at position of buffer
+   * @param buffer
+   * @param position
+   */
+  void start(byte[] buffer, int position) {
+    buf = buffer;
+    pos = position;
+    low = 0;
+    range = 0xFFFFFFFFL;
+    cache = 0;
+    cacheSize = 1;
+  }
+
+  /**
+   * Encode symbol with frequency interval [cum, cum + freq) out of 2^totalBits
+   * @param cum: cumulative frequency of previous symbols
+   * @param freq: frequency of symbol
+   * @param totalBits
+   */
+  void encode(int cum, int freq, int totalBits) {
+    long r = range >>> totalBits;
+    low += r * cum;
+    range = r * freq;
+    while (range < top) {
+      range <<= 8;
+      shiftLow();
+    }
+  }
+
+  /**
+   * Encode symbol with frequency interval [cum, cum + freq) out of total
+   * @param cum: cumulative frequency of previous symbols
+   * @param freq: frequency of symbol
+   * @param total: sum of all frequencies, at most 2^16
+   */
+  void encodeTotal(int cum, int freq, int total) {
+    long r = range / total;
+    low += r * cum;
+    range = r * freq;
+    while (range < top) {
+      range <<= 8;
+      shiftLow();
+    }
+  }
+
+  /**
+   * Flush coder state
+   * @return int: position after last written byte
+   */
+  int finish() {
+    for (int i = 0; i < 5; i++)
+      shiftLow();
+    return pos;
+  }
+
+  /**
+   * Get output buffer, it could be reallocated while coding
+   * @return byte[]: buffer
+   */
+  byte[] getBuffer() {
+    return buf;
+  }
+
+  private void shiftLow() {
+    if (low < 0xFF000000L || low > 0xFFFFFFFFL) {
+      int carry = (int) (low >>> 32);
+      int temp = cache;
+      do {
+        if (pos == buf.length)
+          buf = Arrays.copyOf(buf, buf.length * 2 + 16);
+        buf[pos++] = (byte) (temp + carry);
+        temp = 0xFF;
+      } while (--cacheSize != 0);
+      cache = (int) ((low >>> 24) & 0xFF);
+    }
+    cacheSize++;
+    low = (low & 0x00FFFFFFL) << 8;
+  }
+}
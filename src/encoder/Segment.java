@@ -1,13 +0,0 @@
-package encoder;
-
-public class Segment {
-    public double left, right; // Left and right ends of segment
-
-    /**
-     * Default constructor
-     */
-    Segment() {
-        left = 0;
-        right = 1;
-    }
-}
@@ -0,0 +1,74 @@
+package encoder;
+
+/**
+ * Immutable segments of arithmetic coder built from probabilities, shared by all coders of the same model.
+ * Letters with non-zero probability go in order of unsigned byte value
+ */
+final class Segments {
+  private static final int lookupBits = 12;  // lookup has 2^lookupBits entries
+  final double[] letterLeft, letterRight;    // Segments of letters, indexed by unsigned byte
+  final byte[] letter;                       // Letters in order of their segments
+  final double[] left, right, widthInv;      // Ends of segments in the same order and reciprocal widths
+  private final int[] lookup;                // Index of first segment for every quantized code
+
+  /**
+   * Build segments
+   * @param probability: 256 probabilities, indexed by unsigned byte
+   */
+  Segments(double[] probability) {
+    letterLeft = new double[256];
+    letterRight = new double[256];
+    double l = 0;
+
+    int n = 0, k = 0;
+    for (int i = 0; i < 256; i++)
+      if (probability[i] > 0)
+        n++;
+    letter = new byte[n];
+    left = new double[n];
+    right = new double[n];
+    widthInv = new double[n];
+
+    for (int i = 0; i < 256; i++) {
+      letterLeft[i] = l;
+      letterRight[i] = l + probability[i];
+      if (probability[i] <= 0)
+        continue;
+      l = letterRight[i];
+
+      letter[k] = (byte) i;
+      left[k] = letterLeft[i];
+      right[k] = letterRight[i];
+      widthInv[k] = 1 / (right[k] - left[k]);
+      k++;
+    }
+
+    // lookup[q] is the first segment ending after q / 2^lookupBits,
+    // so decoder starts from it and moves at most a few segments forward
+    int size = 1 << lookupBits;
+    lookup = new int[size + 1];
+    int idx = 0;
+    for (int q = 0; q <= size; q++) {
+      double code = (double) q / size;
+      while (idx < n && right[idx] <= code)
+        idx++;
+      lookup[q] = idx;
+    }
+  }
+
+  /**
+   * Find segment containing code
+   * @param code
+   * @return int: index of segment, -1 if code is out of all segments
+   */
+  int find(double code) {
+    if (!(code >= 0 && code < 1))
+      return -1;
+    int idx = lookup[(int) (code * (1 << lookupBits))];
+    while (idx < right.length && code >= right[idx])
+      idx++;
+    if (idx == right.length || code < left[idx])
+      return -1;
+    return idx;
+  }
+}
@@ -0,0 +1,88 @@
+package encoder;
+
+import java.io.IOException;
+
+/**
+ * Immutable model read from table file. Segments, frequencies and tANS tables are built once,
+ * when the first coder asks for them
+ */
+final class TableModel {
+  private final double[] probability; // Probabilities, indexed by unsigned byte, never changed
+  private final int num, block;       // Sequence length and block size of table, 0 if not set
+  private final int[] freq;           // Quantized frequencies of binary table, null for text table
+  private Segments segments;
+  private Frequencies frequencies;
+  private final AnsTables[] ansTables = new AnsTables[AnsTables.maxTableLog + 1]; // Indexed by table log
+
+  /**
+   * Model of text table
+   * @param probability
+   * @param num: 0 if not set
+   */
+  TableModel(double[] probability, int num) {
+    this.probability = probability;
+    this.num = num;
+    block = 0;
+    freq = null;
+  }
+
+  /**
+   * Model of binary table
+   * @param model
+   */
+  TableModel(BinaryModel model) {
+    probability = model.probabilities();
+    num = model.getNum();
+    block = model.getBlock();
+    freq = model.getFreq();
+  }
+
+  /**
+   * Get copy of probabilities
+   * @return double[]: 256 probabilities
+   */
+  double[] probabilities() {
+    return probability.clone();
+  }
+
+  int getNum() {
+    return num;
+  }
+
+  int getBlock() {
+    return block;
+  }
+
+  /**
+   * Get segments of arithmetic coder
+   * @return Segments: shared segments
+   */
+  synchronized Segments segments() {
+    if (segments == null)
+      segments = new Segments(probability);
+    return segments;
+  }
+
+  /**
+   * Get frequencies of range coder
+   * @return Frequencies: shared frequencies
+   * @throws IOException if table is empty
+   */
+  synchronized Frequencies frequencies() throws IOException {
+    if (frequencies == null)
+      frequencies = new Frequencies(freq != null ? freq : BinaryModel.quantize(probability));
+    return frequencies;
+  }
+
+  /**
+   * Get tables of tANS coder
+   * @param tableLog: log2 of number of states
+   * @return AnsTables: shared tables
+   * @throws IOException if table is empty
+   */
+  synchronized AnsTables ansTables(int tableLog) throws IOException {
+    if (ansTables[tableLog] == null)
+      ansTables[tableLog] = new AnsTables(frequencies().freq, tableLog);
+    return ansTables[tableLog];
+  }
+}
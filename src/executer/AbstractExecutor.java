@@ -0,0 +1,542 @@
+package executer;
+
+import adapter.AdapterType;
+import adapter.BlockAdapter;
+import adapter.ByteAdapter;
+import adapter.ByteArrayAdapter;
+import adapter.DoubleAdapter;
+import adapter.DoubleArrayAdapter;
+import adapter.SharedBlock;
+import io.BlockInput;
+import io.ChannelOutput;
+import metrics.ExecutorMetrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Base of block executors: communication with providers and consumers through adapters.
+ * Subclass sets readable/writable types and codes one block at a time
+ */
+public abstract class AbstractExecutor implements Executor {
+  protected BlockInput inputFile;
+  protected ChannelOutput outputFile;
+  protected int blockSize, dataLen;                 // Size of block and number of valid elements in current block
+  protected ArrayList<Executor> consumers;          // Array of all consumers
+  protected Map<Executor, Map.Entry<Object, AdapterType>> adapters; // Map of providers to pair of their adapter and adapter type
+  protected Object dataOut;                         // Coded block: byte[] or double[]
+  protected int dataOutLen;                         // Number of valid elements in dataOut
+  protected ArrayList<AdapterType> readableTypes;   // Array of current readable types
+  protected ArrayList<AdapterType> writableTypes;   // Array of current writable types
+  private byte[] bytesIn;                           // Reusable input block buffers
+  private ByteBuffer bytesInBuffer;                 // bytesIn wrapped for code(...)
+  private double[] doublesIn;
+  private DoubleBuffer doublesInBuffer;             // doublesIn wrapped for code(...)
+  private final Queue<Object> freeArrays;           // Output arrays released by all consumers
+  private SharedBlock currentBlock;                 // dataOut shared with consumers while transferring
+  private boolean providerDrained;                  // Last block read from provider adapter was the final one
+  private final ExecutorMetrics metrics;
+  private AbstractExecutor fusedConsumer;           // The only consumer, called directly without adapters
+  private ByteBuffer fusedBytes;                    // Provider output wrapped for code(...) in fused chain
+  private DoubleBuffer fusedDoubles;
+
+  class DoubleAdapterClass implements DoubleAdapter, DoubleArrayAdapter {
+    int index = 0;  // current index in dataOut
+
+    /**
+     * Get next double from dataOut
+     * @return Double: next double if exists, null otherwise
+     */
+    @Override
+    public Double getNextDouble() {
+      if (index == dataOutLen) {
+        index = 0;
+        return null;
+      }
+      return ((double[]) dataOut)[index++];
+    }
+
+    /**
+     * Read next doubles from dataOut
+     * @param dst
+     * @param off
+     * @param len
+     * @return int: number of doubles read, -1 if there are no more doubles
+     */
+    @Override
+    public int read(double[] dst, int off, int len) {
+      if (index == dataOutLen) {
+        index = 0;
+        return -1;
+      }
+      int n = Math.min(len, dataOutLen - index);
+      System.arraycopy(dataOut, index, dst, off, n);
+      index += n;
+      return n;
+    }
+  }
+
+  class ByteAdapterClass implements ByteAdapter, ByteArrayAdapter {
+    int index = 0;  // current index in dataOut
+
+    /**
+     * Get next byte from dataOut
+     * @return Byte: next byte if exists, null otherwise
+     */
+    @Override
+    public Byte getNextByte() {
+      if (index == dataOutLen) {
+        index = 0;
+        return null;
+      }
+      return ((byte[]) dataOut)[index++];
+    }
+
+    /**
+     * Read next bytes from dataOut
+     * @param dst
+     * @param off
+     * @param len
+     * @return int: number of bytes read, -1 if there are no more bytes
+     */
+    @Override
+    public int read(byte[] dst, int off, int len) {
+      if (index == dataOutLen) {
+        index = 0;
+        return -1;
+      }
+      int n = Math.min(len, dataOutLen - index);
+      System.arraycopy(dataOut, index, dst, off, n);
+      index += n;
+      return n;
+    }
+  }
+
+  class BlockAdapterClass implements BlockAdapter {
+    /**
+     * Get current block without copying
+     * @return SharedBlock: block retained for caller
+     */
+    @Override
+    public SharedBlock getBlock() {
+      return currentBlock.retain();
+    }
+  }
+
+  /**
+   * Executor constructor
+   */
+  protected AbstractExecutor() {
+    readableTypes = new ArrayList<>();
+    writableTypes = new ArrayList<>();
+    consumers = new ArrayList<>();
+    adapters = new HashMap<>();
+    freeArrays = new ConcurrentLinkedQueue<>();
+    metrics = new ExecutorMetrics();
+  }
+
+  /**
+   * Code data
+   * @param data: ByteBuffer or DoubleBuffer from index 0, first dataLen elements are used
+   * @return Object: coded data, byte[] or double[] taken from outputBytes/outputDoubles,
+   * first dataOutLen elements are valid
+   */
+  public abstract Object code(Object data);
+
+  /**
+   * Code data and record block in metrics
+   * @param data: ByteBuffer or DoubleBuffer, see code(...)
+   * @return Object: coded data
+   */
+  private Object codeBlock(Object data) {
+    long start = System.nanoTime();
+    Object out = code(data);
+    metrics.recordCode(dataLen, data instanceof DoubleBuffer ? (long) dataLen * Double.BYTES : dataLen,
+        System.nanoTime() - start);
+    return out;
+  }
+
+  /**
+   * Get counters of executor
+   * @return ExecutorMetrics: metrics
+   */
+  @Override
+  public ExecutorMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Get array for coded bytes, it is not shared with any consumer
+   * @param minLen
+   * @return byte[]: array of at least minLen bytes
+   */
+  protected byte[] outputBytes(int minLen) {
+    Object array;
+    while ((array = freeArrays.poll()) != null)
+      if (array instanceof byte[] && ((byte[]) array).length >= minLen)
+        return (byte[]) array;
+    return new byte[minLen];
+  }
+
+  /**
+   * Get array for coded doubles, it is not shared with any consumer
+   * @param minLen
+   * @return double[]: array of at least minLen doubles
+   */
+  protected double[] outputDoubles(int minLen) {
+    Object array;
+    while ((array = freeArrays.poll()) != null)
+      if (array instanceof double[] && ((double[]) array).length >= minLen)
+        return (double[]) array;
+    return new double[minLen];
+  }
+
+  /**
+   * Set consumer to executor
+   * @param consumer
+   * @throws IOException
+   */
+  @Override
+  public void setConsumer(Executor consumer) throws IOException {
+    consumers.add(consumer);
+    boolean canCommunicate = false;
+
+    // Consumer lists its readable types in order of preference, take the first one we can write
+    for (AdapterType type : consumer.getReadableTypes()) {
+      if (writableTypes.contains(type)) {
+        canCommunicate = true;
+        switch (type) {
+          case BYTE:
+          case BYTE_ARRAY: {
+            consumer.setAdapter(this, new ByteAdapterClass(), type);
+            break;
+          }
+          case DOUBLE:
+          case DOUBLE_ARRAY: {
+            consumer.setAdapter(this, new DoubleAdapterClass(), type);
+            break;
+          }
+          case BYTE_BLOCK:
+          case DOUBLE_BLOCK: {
+            consumer.setAdapter(this, new BlockAdapterClass(), type);
+            break;
+          }
+        }
+        break;
+      }
+    }
+
+    if (!canCommunicate) {
+      throw new IOException("Can't communicate, wrong transporter structure");
+    }
+  }
+
+  /**
+   * Fuse the only consumer to executor: coded blocks are passed to consumer code(...)
+   * as primitive buffers on the same thread, without adapters and shared blocks
+   * @param consumer
+   * @throws IOException if consumer can't read output of executor
+   */
+  public void fuse(AbstractExecutor consumer) throws IOException {
+    for (AdapterType type : consumer.getReadableTypes()) {
+      if (writableTypes.contains(type)) {
+        fusedConsumer = consumer;
+        return;
+      }
+    }
+    throw new IOException("Can't communicate, wrong transporter structure");
+  }
+
+  /**
+   * Code output of fused provider by blocks of blockSize
+   * @param data: byte[] or double[] of provider, not used after return
+   * @param len: number of valid elements
+   * @throws IOException
+   */
+  private void putFused(Object data, int len) throws IOException {
+    if (data instanceof byte[]) {
+      if (fusedBytes == null || fusedBytes.array() != data)
+        fusedBytes = ByteBuffer.wrap((byte[]) data);
+    } else {
+      if (fusedDoubles == null || fusedDoubles.array() != data)
+        fusedDoubles = DoubleBuffer.wrap((double[]) data);
+    }
+    for (int off = 0; off < len; off += blockSize) {
+      dataLen = Math.min(blockSize, len - off);
+      if (data instanceof byte[]) {
+        fusedBytes.limit(off + dataLen);
+        fusedBytes.position(off);
+        dataOut = codeBlock(fusedBytes.slice());
+      } else {
+        fusedDoubles.limit(off + dataLen);
+        fusedDoubles.position(off);
+        dataOut = codeBlock(fusedDoubles.slice());
+      }
+      transfer();
+    }
+  }
+
+  /**
+   * Complete work after all blocks were put, executors keeping no state across blocks do nothing
+   * @throws IOException
+   */
+  @Override
+  public void complete() throws IOException {
+  }
+
+  /**
+   * Check if executor keeps state across blocks, executors coding every block on its own are not stateful
+   * @return boolean: false
+   */
+  @Override
+  public boolean isStateful() {
+    return false;
+  }
+
+  /**
+   * Set adapter to executor
+   * @param provider
+   * @param adapter
+   * @param typeOfAdapter
+   */
+  @Override
+  public void setAdapter(Executor provider, Object adapter, AdapterType typeOfAdapter) {
+    adapters.put(provider, new AbstractMap.SimpleImmutableEntry<>(adapter, typeOfAdapter));
+  }
+
+  /**
+   * Get readable types from consumer
+   * @return ArrayList<AdapterType>: readable types
+   */
+  @Override
+  public ArrayList<AdapterType> getReadableTypes() {
+    return readableTypes;
+  }
+
+  /**
+   * Set output stream
+   * @param output
+   * @throws IOException
+   */
+  @Override
+  public void setOutput(ChannelOutput output) throws IOException {
+    outputFile = output;
+  }
+
+  /**
+   * Set input stream
+   * @param input
+   */
+  @Override
+  public void setInput(BlockInput input) {
+    inputFile = input;
+  }
+
+  /**
+   * Run function: code input by blocks, byte blocks are passed to code(...) without copying
+   * @throws IOException in case of input error or input of doubles ending with part of double
+   */
+  @Override
+  public void run() throws IOException {
+    if (readableTypes.contains(AdapterType.BYTE_BLOCK) || readableTypes.contains(AdapterType.BYTE_ARRAY)
+        || readableTypes.contains(AdapterType.BYTE)) {
+      ByteBuffer block;
+      while ((block = inputFile.nextBlock(blockSize)) != null) {
+        dataLen = block.remaining();
+        dataOut = codeBlock(block);
+        transfer();
+      }
+    } else {
+      ByteBuffer block;
+      while ((block = inputFile.nextBlock(blockSize * Double.BYTES)) != null) {
+        // inputs return whole blocks of doubles, only the last one can end with part of double
+        if (block.remaining() % Double.BYTES != 0)
+          throw new IOException("Truncated input: " + block.remaining() % Double.BYTES + " bytes of incomplete double at the end");
+        dataLen = block.remaining() / Double.BYTES;
+        dataOut = codeBlock(block.asDoubleBuffer());
+        transfer();
+      }
+    }
+  }
+
+  /**
+   * Pass coded block to consumers or write it to output stream.
+   * Consumers share the block, its array is reused once all of them released it.
+   * Fused consumer codes the block before return, so its array is reused at once
+   * @throws IOException
+   */
+  protected void transfer() throws IOException {
+    long start = System.nanoTime();
+    int outLen = dataOutLen;
+    long outBytes = dataOut instanceof double[] ? (long) outLen * Double.BYTES : outLen;
+    if (fusedConsumer != null) {
+      fusedConsumer.putFused(dataOut, dataOutLen);
+      freeArrays.offer(dataOut);
+    } else if (!consumers.isEmpty()) {
+      currentBlock = new SharedBlock(dataOut, dataOutLen, freeArrays);
+      try {
+        for (Executor consumer : consumers)
+          consumer.put(this);
+      } finally {
+        currentBlock.release();
+        currentBlock = null;
+      }
+    } else {
+      if (dataOut instanceof byte[])
+        outputFile.write((byte[]) dataOut, 0, dataOutLen);
+      else
+        outputFile.writeDoubles((double[]) dataOut, 0, dataOutLen);
+      outputFile.endBlock();
+      freeArrays.offer(dataOut);
+    }
+    metrics.recordTransfer(outLen, outBytes, System.nanoTime() - start);
+  }
+
+  /**
+   * Read next block of bytes from provider adapter
+   * @param currentAdapter
+   * @param type
+   * @return int: number of bytes read into bytesIn
+   */
+  private int readBlock(Object currentAdapter, AdapterType type) {
+    if (bytesIn == null || bytesIn.length < blockSize) {
+      bytesIn = new byte[blockSize];
+      bytesInBuffer = ByteBuffer.wrap(bytesIn);
+    }
+    int len = 0;
+
+    if (type == AdapterType.BYTE_ARRAY) {
+      ByteArrayAdapter byteAdapter = (ByteArrayAdapter) currentAdapter;
+      while (len < blockSize) {
+        int n = byteAdapter.read(bytesIn, len, blockSize - len);
+        if (n < 0) {
+          providerDrained = true;
+          break;
+        }
+        len += n;
+      }
+    } else {
+      ByteAdapter byteAdapter = (ByteAdapter) currentAdapter;
+      while (len < blockSize) {
+        Byte cur = byteAdapter.getNextByte();
+        if (cur == null) {
+          providerDrained = true;
+          break;
+        }
+        bytesIn[len++] = cur;
+      }
+    }
+    return len;
+  }
+
+  /**
+   * Read next block of doubles from provider adapter
+   * @param currentAdapter
+   * @param type
+   * @return int: number of doubles read into doublesIn
+   */
+  private int readBlockDoubles(Object currentAdapter, AdapterType type) {
+    if (doublesIn == null || doublesIn.length < blockSize) {
+      doublesIn = new double[blockSize];
+      doublesInBuffer = DoubleBuffer.wrap(doublesIn);
+    }
+    int len = 0;
+
+    if (type == AdapterType.DOUBLE_ARRAY) {
+      DoubleArrayAdapter doubleAdapter = (DoubleArrayAdapter) currentAdapter;
+      while (len < blockSize) {
+        int n = doubleAdapter.read(doublesIn, len, blockSize - len);
+        if (n < 0) {
+          providerDrained = true;
+          break;
+        }
+        len += n;
+      }
+    } else {
+      DoubleAdapter doubleAdapter = (DoubleAdapter) currentAdapter;
+      while (len < blockSize) {
+        Double cur = doubleAdapter.getNextDouble();
+        if (cur == null) {
+          providerDrained = true;
+          break;
+        }
+        doublesIn[len++] = cur;
+      }
+    }
+    return len;
+  }
+
+  /**
+   * Transfer data to consumers
+   * @param provider
+   * @throws IOException
+   */
+  @Override
+  public void put(Executor provider) throws IOException {
+    Object currentAdapter = adapters.get(provider).getKey();
+    AdapterType type = adapters.get(provider).getValue();
+
+    providerDrained = false;
+    switch (type) {
+      case BYTE:
+      case BYTE_ARRAY: {
+        // reading by blocks
+        while (!providerDrained) {
+          dataLen = readBlock(currentAdapter, type);
+          if (dataLen == 0)
+            break;
+          dataOut = codeBlock(bytesInBuffer);
+          transfer();
+        }
+        break;
+      }
+      case DOUBLE:
+      case DOUBLE_ARRAY: {
+        // reading by blocks
+        while (!providerDrained) {
+          dataLen = readBlockDoubles(currentAdapter, type);
+          if (dataLen == 0)
+            break;
+          dataOut = codeBlock(doublesInBuffer);
+          transfer();
+        }
+        break;
+      }
+      case BYTE_BLOCK:
+      case DOUBLE_BLOCK: {
+        // code shared block by pieces of blockSize without copying
+        SharedBlock block = ((BlockAdapter) currentAdapter).getBlock();
+        try {
+          for (int off = 0; off < block.length(); off += blockSize) {
+            dataLen = Math.min(blockSize, block.length() - off);
+            if (type == AdapterType.BYTE_BLOCK) {
+              ByteBuffer view = block.bytes();
+              view.position(off);
+              view.limit(off + dataLen);
+              dataOut = codeBlock(view.slice());
+            } else {
+              DoubleBuffer view = block.doubles();
+              view.position(off);
+              view.limit(off + dataLen);
+              dataOut = codeBlock(view.slice());
+            }
+            transfer();
+          }
+        } finally {
+          block.release();
+        }
+        break;
+      }
+      default: {
+        throw new IOException("Cant work with type: " + type);
+      }
+    }
+  }
+}
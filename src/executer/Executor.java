@@ -1,9 +1,10 @@
 package executer;
 
 import adapter.AdapterType;
+import io.BlockInput;
+import io.ChannelOutput;
+import metrics.ExecutorMetrics;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 
@@ -42,14 +43,15 @@ public interface Executor {
     /**
      * Set output stream
      * @param output
+     * @throws IOException
      */
-    void setOutput(DataOutputStream output);
+    void setOutput(ChannelOutput output) throws IOException;
 
     /**
      * Set input stream
      * @param input
      */
-    void setInput(DataInputStream input);
+    void setInput(BlockInput input);
 
     /**
      * Run function
@@ -62,4 +64,22 @@ public interface Executor {
      * @throws IOException
      */
     void put(Executor provider) throws IOException;
+
+    /**
+     * Complete work after all blocks were put, called once when conveyor finished
+     * @throws IOException
+     */
+    void complete() throws IOException;
+
+    /**
+     * Check if executor keeps state across blocks, e.g. adaptive model or transform history
+     * @return boolean: true if block can be decoded only after all previous blocks
+     */
+    boolean isStateful();
+
+    /**
+     * Get counters of executor
+     * @return ExecutorMetrics: metrics, null if executor records none
+     */
+    ExecutorMetrics getMetrics();
 }
@@ -0,0 +1,23 @@
+package executer;
+
+import java.io.IOException;
+
+/**
+ * Provider of executor type chosen by 'type' directive of executor config.
+ * Providers are found by ServiceLoader in META-INF/services/executer.ExecutorProvider
+ */
+public interface ExecutorProvider {
+    /**
+     * Get name of type
+     * @return String: value of 'type' directive
+     */
+    String getType();
+
+    /**
+     * Create executor, configs are set later
+     * @param inputFileName: input file of conveyor
+     * @return Executor: new executor
+     * @throws IOException
+     */
+    Executor create(String inputFileName) throws IOException;
+}
@@ -0,0 +1,55 @@
+package executer;
+
+import logger.Logger;
+
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.TreeMap;
+
+/**
+ * Registry of executor types loaded once through ServiceLoader
+ */
+public final class ExecutorRegistry {
+  private static TreeMap<String, ExecutorProvider> providers; // Map of type name to provider
+
+  private ExecutorRegistry() {
+  }
+
+  /**
+   * Load providers, the first provider of every type name is used
+   */
+  private static synchronized TreeMap<String, ExecutorProvider> providers() {
+    if (providers == null) {
+      providers = new TreeMap<>();
+      try {
+        for (ExecutorProvider provider : ServiceLoader.load(ExecutorProvider.class)) {
+          if (providers.containsKey(provider.getType()))
+            Logger.writeErrorLn("Executor type " + provider.getType() + " of " + provider.getClass().getName()
+                + " is already provided by " + providers.get(provider.getType()).getClass().getName());
+          else
+            providers.put(provider.getType(), provider);
+        }
+      } catch (ServiceConfigurationError ex) {
+        Logger.writeErrorLn("Can't load executor providers: " + ex.getMessage());
+      }
+    }
+    return providers;
+  }
+
+  /**
+   * Get provider of type
+   * @param type
+   * @return ExecutorProvider: provider, null if type is unknown
+   */
+  public static ExecutorProvider get(String type) {
+    return providers().get(type);
+  }
+
+  /**
+   * Get names of all types
+   * @return String: names separated by '|'
+   */
+  public static String types() {
+    return String.join("|", providers().keySet());
+  }
+}
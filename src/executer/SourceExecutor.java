@@ -0,0 +1,27 @@
+package executer;
+
+import java.io.IOException;
+
+/**
+ * Executor producing data of conveyor itself instead of reading conveyor input, e.g. receiving it from network.
+ * Source can only be the first executor of conveyor, so it never has providers
+ */
+public interface SourceExecutor extends Executor {
+    /**
+     * Work of conveyor pending after block was passed to consumers
+     */
+    interface Drain {
+        /**
+         * Run pending work, consumers have coded all blocks passed to them on return
+         * @throws IOException
+         */
+        void run() throws IOException;
+    }
+
+    /**
+     * Produce blocks and pass them to consumers until source ends
+     * @param drain: called after every block is passed to consumers
+     * @throws IOException
+     */
+    void produce(Drain drain) throws IOException;
+}
@@ -0,0 +1,18 @@
+package io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Source of conveyor input, read by blocks
+ */
+public interface BlockInput extends Closeable {
+  /**
+   * Get next block of input
+   * @param maxLen: maximal length of block, block is shorter only at the end of input
+   * @return ByteBuffer: block from position 0 to limit, null at the end of input
+   * @throws IOException
+   */
+  ByteBuffer nextBlock(int maxLen) throws IOException;
+}
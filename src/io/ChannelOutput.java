@@ -0,0 +1,159 @@
+package io;
+
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Buffered output to channel, doubles are written big-endian as DataOutputStream does
+ */
+public class ChannelOutput implements Closeable {
+  private static final int bufferSize = 1 << 20;
+  private final WritableByteChannel channel;
+  private final ByteBuffer buffer;
+  private boolean flushFrames;                     // Every frame is flushed, so reader of stream gets it at once
+
+  /**
+   * Output to channel
+   * @param channel
+   */
+  public ChannelOutput(WritableByteChannel channel) {
+    this.channel = channel;
+    buffer = ByteBuffer.allocateDirect(bufferSize);
+  }
+
+  /**
+   * Output without channel and buffer, for subclasses writing data elsewhere
+   */
+  protected ChannelOutput() {
+    channel = null;
+    buffer = null;
+  }
+
+  /**
+   * Create or truncate file for output
+   * @param fileName
+   * @return ChannelOutput: output to file
+   * @throws IOException
+   */
+  public static ChannelOutput toFile(String fileName) throws IOException {
+    return new ChannelOutput(FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+  }
+
+  /**
+   * Output to standard output of process, every frame is flushed
+   * @return ChannelOutput: output
+   */
+  public static ChannelOutput toStdout() {
+    ChannelOutput output = new ChannelOutput(stdout());
+    output.setFlushFrames();
+    return output;
+  }
+
+  /**
+   * Open channel of standard output
+   * @return WritableByteChannel: channel
+   */
+  protected static WritableByteChannel stdout() {
+    return new FileOutputStream(FileDescriptor.out).getChannel();
+  }
+
+  /**
+   * Flush data written to stream at the end of every frame
+   */
+  protected void setFlushFrames() {
+    flushFrames = true;
+  }
+
+  /**
+   * Write bytes
+   * @param data
+   * @param off
+   * @param len
+   * @throws IOException
+   */
+  public void write(byte[] data, int off, int len) throws IOException {
+    while (len > 0) {
+      if (!buffer.hasRemaining())
+        flushBuffer();
+      int n = Math.min(len, buffer.remaining());
+      buffer.put(data, off, n);
+      off += n;
+      len -= n;
+    }
+  }
+
+  /**
+   * Write doubles
+   * @param data
+   * @param off
+   * @param len
+   * @throws IOException
+   */
+  public void writeDoubles(double[] data, int off, int len) throws IOException {
+    for (int i = off; i < off + len; i++) {
+      if (buffer.remaining() < Double.BYTES)
+        flushBuffer();
+      buffer.putDouble(data[i]);
+    }
+  }
+
+  /**
+   * Mark end of frame: data written since previous frame was coded from originalLen bytes of conveyor input.
+   * Plain output has no frames, output to stream is flushed
+   * @param originalLen: number of input bytes coded into frame, 0 for frame of metadata
+   * @throws IOException
+   */
+  public void endFrame(long originalLen) throws IOException {
+    if (flushFrames)
+      flushBuffer();
+  }
+
+  /**
+   * Mark end of block written by the last executor, output to stream is flushed
+   * @throws IOException
+   */
+  public void endBlock() throws IOException {
+    if (flushFrames)
+      flushBuffer();
+  }
+
+  /**
+   * Mark that frames can be decoded only in order, e.g. coder state carries over between blocks.
+   * Plain output has no frames
+   */
+  public void setDependentFrames() {
+  }
+
+  /**
+   * Write buffered data to channel
+   * @throws IOException
+   */
+  public void flush() throws IOException {
+    flushBuffer();
+  }
+
+  /**
+   * Flush and close channel
+   * @throws IOException
+   */
+  @Override
+  public void close() throws IOException {
+    flushBuffer();
+    channel.close();
+  }
+
+  private void flushBuffer() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining())
+      channel.write(buffer);
+    buffer.clear();
+  }
+}
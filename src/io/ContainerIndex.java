@@ -0,0 +1,182 @@
+package io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+/**
+ * Index of indexed container: frames of coded data with their offsets and original lengths.
+ * Container is a sequence of frames followed by footer: for every frame offset (long), length (int)
+ * and original length (long), then number of frames (int), offset of footer (long), flags (int)
+ * and magic (int). Frames of original length 0 hold metadata, e.g. model header
+ */
+public class ContainerIndex {
+  public static final int magic = 0x43495831;   // "CIX1"
+  private static final int entryLen = 20;       // offset, length, original length
+  private static final int trailerLen = 20;     // number of frames, footer offset, flags, magic
+  private static final int dependentFlag = 1;   // frames can be decoded only in order
+  private final long[] offset, original, start; // start is offset of frame in original data
+  private final int[] length;
+  private final boolean dependent;
+
+  /**
+   * Index constructor
+   * @param offset: file offsets of frames
+   * @param length: coded lengths of frames in bytes
+   * @param original: numbers of original elements of frames
+   * @param frames: number of frames, arrays may be longer
+   * @param dependent: frames can be decoded only in order
+   */
+  ContainerIndex(long[] offset, int[] length, long[] original, int frames, boolean dependent) {
+    this.dependent = dependent;
+    this.offset = new long[frames];
+    this.length = new int[frames];
+    this.original = new long[frames];
+    start = new long[frames + 1];
+    System.arraycopy(offset, 0, this.offset, 0, frames);
+    System.arraycopy(length, 0, this.length, 0, frames);
+    System.arraycopy(original, 0, this.original, 0, frames);
+    for (int i = 0; i < frames; i++)
+      start[i + 1] = start[i] + original[i];
+  }
+
+  /**
+   * Read index from footer of container
+   * @param channel: channel of container file
+   * @param fileName: name of container for error messages
+   * @return ContainerIndex: index
+   * @throws IOException if file is not an indexed container
+   */
+  public static ContainerIndex read(FileChannel channel, String fileName) throws IOException {
+    long size = channel.size();
+    if (size < trailerLen)
+      throw new IOException("Not an indexed container: " + fileName);
+    ByteBuffer trailer = readFully(channel, size - trailerLen, trailerLen);
+    int frames = trailer.getInt();
+    long footer = trailer.getLong();
+    int flags = trailer.getInt();
+    if (trailer.getInt() != magic || frames < 0 || footer < 0 || footer + (long) frames * entryLen + trailerLen != size)
+      throw new IOException("Not an indexed container: " + fileName);
+
+    ByteBuffer entries = readFully(channel, footer, frames * entryLen);
+    long[] offset = new long[frames], original = new long[frames];
+    int[] length = new int[frames];
+    for (int i = 0; i < frames; i++) {
+      offset[i] = entries.getLong();
+      length[i] = entries.getInt();
+      original[i] = entries.getLong();
+      if (offset[i] < 0 || length[i] < 0 || original[i] < 0 || offset[i] + length[i] > footer)
+        throw new IOException("Broken index of container: " + fileName + " at frame " + i);
+    }
+    return new ContainerIndex(offset, length, original, frames, (flags & dependentFlag) != 0);
+  }
+
+  private static ByteBuffer readFully(FileChannel channel, long position, int len) throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(len);
+    while (buf.hasRemaining())
+      if (channel.read(buf, position + buf.position()) < 0)
+        throw new IOException("Unexpected end of container");
+    buf.flip();
+    return buf;
+  }
+
+  /**
+   * Write footer to output
+   * @param output
+   * @param footer: offset of footer in output
+   * @throws IOException
+   */
+  void write(ChannelOutput output, long footer) throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(frames() * entryLen + trailerLen);
+    for (int i = 0; i < frames(); i++) {
+      buf.putLong(offset[i]);
+      buf.putInt(length[i]);
+      buf.putLong(original[i]);
+    }
+    buf.putInt(frames());
+    buf.putLong(footer);
+    buf.putInt(dependent ? dependentFlag : 0);
+    buf.putInt(magic);
+    output.write(buf.array(), 0, buf.position());
+  }
+
+  /**
+   * Check if frames can be decoded only in order, from the first one
+   * @return boolean: true if coder state carries over between frames
+   */
+  public boolean isDependent() {
+    return dependent;
+  }
+
+  public int frames() {
+    return offset.length;
+  }
+
+  public long getOffset(int frame) {
+    return offset[frame];
+  }
+
+  public int getLength(int frame) {
+    return length[frame];
+  }
+
+  public long getOriginal(int frame) {
+    return original[frame];
+  }
+
+  /**
+   * Get offset of frame in original data
+   * @param frame
+   * @return long: number of original elements in previous frames
+   */
+  public long getStart(int frame) {
+    return start[frame];
+  }
+
+  /**
+   * Get length of original data
+   * @return long: number of original elements in all frames
+   */
+  public long originalSize() {
+    return start[frames()];
+  }
+
+  /**
+   * Get metadata frames preceding the first frame of data, every decoder must read them first
+   * @return ArrayList<Integer>: frames of original length 0 at the beginning of container
+   */
+  public ArrayList<Integer> prologue() {
+    ArrayList<Integer> result = new ArrayList<>();
+    for (int i = 0; i < frames() && original[i] == 0; i++)
+      result.add(i);
+    return result;
+  }
+
+  /**
+   * Find frames of data covering range of original data, dependent frames are covered from the first one
+   * @param from: offset of the first element
+   * @param to: offset after the last element
+   * @return ArrayList<Integer>: frames in order of container
+   */
+  public ArrayList<Integer> cover(long from, long to) {
+    ArrayList<Integer> result = new ArrayList<>();
+    if (from >= to)
+      return result;
+    if (dependent)
+      from = 0;
+    // the first frame ending after 'from'
+    int lo = 0, hi = frames();
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (start[mid + 1] <= from)
+        lo = mid + 1;
+      else
+        hi = mid;
+    }
+    for (int i = lo; i < frames() && start[i] < to; i++)
+      if (original[i] > 0)
+        result.add(i);
+    return result;
+  }
+}
@@ -0,0 +1,114 @@
+package io;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Output in indexed container format: data coded from every block of conveyor input is a frame,
+ * see FramedInput, index of frames is written in footer on close, see ContainerIndex
+ */
+public class ContainerOutput extends ChannelOutput {
+  private long position, frameStart; // Offsets of next byte and of current frame
+  private long[] offsets = new long[64], originals = new long[64];
+  private int[] lengths = new int[64];
+  private int frames;
+  private long carried;              // Input bytes of blocks coded to no data, not framed yet
+  private boolean dependent;         // Frames can be decoded only in order
+
+  /**
+   * Container output to channel
+   * @param channel
+   */
+  public ContainerOutput(WritableByteChannel channel) {
+    super(channel);
+  }
+
+  /**
+   * Create or truncate container file
+   * @param fileName
+   * @return ContainerOutput: output to file
+   * @throws IOException
+   */
+  public static ContainerOutput toFile(String fileName) throws IOException {
+    return new ContainerOutput(FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+  }
+
+  /**
+   * Container output to standard output of process, every frame is flushed
+   * @return ContainerOutput: output
+   */
+  public static ContainerOutput toStdout() {
+    ContainerOutput output = new ContainerOutput(stdout());
+    output.setFlushFrames();
+    return output;
+  }
+
+  @Override
+  public void write(byte[] data, int off, int len) throws IOException {
+    super.write(data, off, len);
+    position += len;
+  }
+
+  @Override
+  public void writeDoubles(double[] data, int off, int len) throws IOException {
+    super.writeDoubles(data, off, len);
+    position += (long) len * Double.BYTES;
+  }
+
+  /**
+   * Add frame of data written since previous frame to index, input coded to no data is counted in the next frame
+   * @param originalLen: number of input bytes coded into frame, 0 for frame of metadata
+   * @throws IOException if frame is too long
+   */
+  @Override
+  public void endFrame(long originalLen) throws IOException {
+    if (position == frameStart) {
+      carried += originalLen;
+      return;
+    }
+    originalLen += carried;
+    carried = 0;
+    if (position - frameStart > Integer.MAX_VALUE)
+      throw new IOException("Too long frame of container: " + (position - frameStart) + " bytes");
+    if (frames == offsets.length) {
+      offsets = Arrays.copyOf(offsets, 2 * frames);
+      lengths = Arrays.copyOf(lengths, 2 * frames);
+      originals = Arrays.copyOf(originals, 2 * frames);
+    }
+    offsets[frames] = frameStart;
+    lengths[frames] = (int) (position - frameStart);
+    originals[frames] = originalLen;
+    frames++;
+    frameStart = position;
+    super.endFrame(originalLen);
+  }
+
+  @Override
+  public void setDependentFrames() {
+    dependent = true;
+  }
+
+  /**
+   * Write footer with index, flush and close channel. Data written after the last frame,
+   * e.g. final bytes of coder, belongs to the last frame of data
+   * @throws IOException
+   */
+  @Override
+  public void close() throws IOException {
+    if (position > frameStart && carried == 0 && frames > 0 && originals[frames - 1] > 0) {
+      if (position - offsets[frames - 1] > Integer.MAX_VALUE)
+        throw new IOException("Too long frame of container: " + (position - offsets[frames - 1]) + " bytes");
+      lengths[frames - 1] = (int) (position - offsets[frames - 1]);
+      frameStart = position;
+    }
+    endFrame(0);
+    long footer = position;
+    new ContainerIndex(offsets, lengths, originals, frames, dependent).write(this, footer);
+    super.close();
+  }
+}
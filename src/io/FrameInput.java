@@ -0,0 +1,63 @@
+package io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+/**
+ * Input of chosen frames of indexed container. Blocks never cross frames, output is told
+ * about every next frame, so all data of a frame must be decoded before the next block is read
+ */
+public class FrameInput implements BlockInput {
+  private final FileChannel channel; // Shared, closed by owner
+  private final ContainerIndex index;
+  private final ArrayList<Integer> frames;
+  private final FrameOutput output;
+  private int next;                  // Index of next frame in frames
+  private long position, end;        // File offsets of next block and of end of current frame
+
+  /**
+   * Input constructor
+   * @param channel: container file
+   * @param index
+   * @param frames: frames to read in order
+   * @param output: output of decoded frames
+   */
+  public FrameInput(FileChannel channel, ContainerIndex index, ArrayList<Integer> frames, FrameOutput output) {
+    this.channel = channel;
+    this.index = index;
+    this.frames = frames;
+    this.output = output;
+  }
+
+  /**
+   * Get next block of current frame, the next frame is started when current one is read
+   * @param maxLen: maximal length of block
+   * @return ByteBuffer: new block, null after the last frame
+   * @throws IOException
+   */
+  @Override
+  public ByteBuffer nextBlock(int maxLen) throws IOException {
+    while (position == end) {
+      if (next == frames.size())
+        return null;
+      int frame = frames.get(next++);
+      output.startFrame(frame);
+      position = index.getOffset(frame);
+      end = position + index.getLength(frame);
+    }
+    int len = (int) Math.min(maxLen, end - position);
+    ByteBuffer buffer = ByteBuffer.allocate(len);
+    while (buffer.hasRemaining())
+      if (channel.read(buffer, position + buffer.position()) < 0)
+        throw new IOException("Unexpected end of container");
+    buffer.flip();
+    position += len;
+    return buffer;
+  }
+
+  @Override
+  public void close() {
+  }
+}
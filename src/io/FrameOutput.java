@@ -0,0 +1,101 @@
+package io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Output of decoded frames of indexed container: data decoded from every frame is cut to its
+ * original length and to extracted range, and written to its place in output file.
+ * Several outputs may write different frames to the same channel at once
+ */
+public class FrameOutput extends ChannelOutput {
+  private final FileChannel channel; // Shared, closed by owner
+  private final ContainerIndex index;
+  private final long from, to;       // Extracted range of original data
+  private int frame = -1;            // Current frame, -1 before the first one
+  private long produced;             // Number of bytes decoded from current frame
+
+  /**
+   * Output constructor
+   * @param channel: output file, byte 'from' of original data goes to offset 0
+   * @param index
+   * @param from: offset of the first extracted byte
+   * @param to: offset after the last extracted byte
+   */
+  public FrameOutput(FileChannel channel, ContainerIndex index, long from, long to) {
+    this.channel = channel;
+    this.index = index;
+    this.from = from;
+    this.to = to;
+  }
+
+  /**
+   * Start next frame, all data of previous frame must be written
+   * @param next
+   * @throws IOException if previous frame was decoded to less than its original length
+   */
+  void startFrame(int next) throws IOException {
+    checkFrame();
+    frame = next;
+    produced = 0;
+  }
+
+  private void checkFrame() throws IOException {
+    if (frame >= 0 && produced < index.getOriginal(frame))
+      throw new IOException("Frame " + frame + " of container is decoded to " + produced + " bytes, "
+          + index.getOriginal(frame) + " expected");
+  }
+
+  /**
+   * Write part of decoded bytes inside current frame and extracted range, the rest is dropped
+   * @param data
+   * @param off
+   * @param len
+   * @throws IOException
+   */
+  @Override
+  public void write(byte[] data, int off, int len) throws IOException {
+    if (frame < 0)
+      return;
+    long start = index.getStart(frame) + produced;
+    produced += len;
+    long lo = Math.max(start, from);
+    long hi = Math.min(Math.min(start + len, index.getStart(frame) + index.getOriginal(frame)), to);
+    if (lo >= hi)
+      return;
+    ByteBuffer buf = ByteBuffer.wrap(data, off + (int) (lo - start), (int) (hi - lo));
+    long pos = lo - from;
+    while (buf.hasRemaining())
+      pos += channel.write(buf, pos);
+  }
+
+  /**
+   * Write decoded doubles as big-endian bytes
+   * @param data
+   * @param off
+   * @param len
+   * @throws IOException
+   */
+  @Override
+  public void writeDoubles(double[] data, int off, int len) throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(len * Double.BYTES);
+    for (int i = off; i < off + len; i++)
+      buf.putDouble(data[i]);
+    write(buf.array(), 0, buf.position());
+  }
+
+  @Override
+  public void flush() {
+  }
+
+  /**
+   * Check the last frame, channel is left open
+   * @throws IOException if the last frame was decoded to less than its original length
+   */
+  @Override
+  public void close() throws IOException {
+    checkFrame();
+    frame = -1;
+  }
+}
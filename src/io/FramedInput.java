@@ -0,0 +1,46 @@
+package io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Input of conveyor writing indexed container: every block of input is a frame of container,
+ * so original lengths of frames are counted in bytes of conveyor input, whatever executors do
+ * between input and output. Frame is ended when the next block is asked, by then all data coded
+ * from the previous block must be written, as in direct and scheduled modes
+ */
+public class FramedInput implements BlockInput {
+  private final BlockInput input;
+  private final ChannelOutput output;
+  private long blockLen;              // Length of the last block read, not framed yet
+
+  /**
+   * Input constructor
+   * @param input: conveyor input
+   * @param output: output told about end of every frame
+   */
+  public FramedInput(BlockInput input, ChannelOutput output) {
+    this.input = input;
+    this.output = output;
+  }
+
+  /**
+   * Get next block, data written since previous block is a frame coded from it
+   * @param maxLen: maximal length of block
+   * @return ByteBuffer: block, null at the end of input
+   * @throws IOException
+   */
+  @Override
+  public ByteBuffer nextBlock(int maxLen) throws IOException {
+    ByteBuffer block = input.nextBlock(maxLen);
+    if (blockLen > 0)
+      output.endFrame(blockLen);
+    blockLen = block == null ? 0 : block.remaining();
+    return block;
+  }
+
+  @Override
+  public void close() throws IOException {
+    input.close();
+  }
+}
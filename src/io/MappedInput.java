@@ -0,0 +1,62 @@
+package io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File input mapped into memory by windows, blocks are slices of mapped window.
+ * Files of any size are supported, only one window is mapped at once
+ */
+public class MappedInput implements BlockInput {
+  private static final long window = 1L << 28; // Size of mapped window
+  private final FileChannel channel;
+  private final long size;
+  private MappedByteBuffer map;                // Current window
+  private long mapStart, position;             // File offsets of window and of next block
+
+  /**
+   * Open file
+   * @param fileName
+   * @throws IOException
+   */
+  public MappedInput(String fileName) throws IOException {
+    channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+    size = channel.size();
+  }
+
+  /**
+   * Get next block of file without copying
+   * @param maxLen: maximal length of block
+   * @return ByteBuffer: read-only slice of mapped file, null at the end of file
+   * @throws IOException
+   */
+  @Override
+  public ByteBuffer nextBlock(int maxLen) throws IOException {
+    if (position >= size)
+      return null;
+    int len = (int) Math.min(maxLen, size - position);
+    if (map == null || position + len > mapStart + map.capacity()) {
+      mapStart = position;
+      map = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, Math.min(Math.max(window, len), size - mapStart));
+    }
+    ByteBuffer block = map.duplicate();
+    block.position((int) (position - mapStart));
+    block.limit(block.position() + len);
+    position += len;
+    return block.slice();
+  }
+
+  /**
+   * Close file
+   * @throws IOException
+   */
+  @Override
+  public void close() throws IOException {
+    map = null;
+    channel.close();
+  }
+}
@@ -0,0 +1,64 @@
+package io;
+
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Input read from channel which may return fewer bytes than asked, e.g. pipe or socket.
+ * Every block is read until it is full or channel ends, so blocks are as long as of file input
+ */
+public class StreamInput implements BlockInput {
+  private final ReadableByteChannel channel;
+  private boolean ended;                   // Channel has ended
+
+  /**
+   * Input from channel
+   * @param channel
+   */
+  public StreamInput(ReadableByteChannel channel) {
+    this.channel = channel;
+  }
+
+  /**
+   * Input from standard input of process
+   * @return StreamInput: input
+   */
+  public static StreamInput fromStdin() {
+    return new StreamInput(new FileInputStream(FileDescriptor.in).getChannel());
+  }
+
+  /**
+   * Read next block, new array is used for every block, as the previous one may still be in use
+   * @param maxLen: maximal length of block
+   * @return ByteBuffer: block on heap array, null at the end of input
+   * @throws IOException
+   */
+  @Override
+  public ByteBuffer nextBlock(int maxLen) throws IOException {
+    if (ended)
+      return null;
+    ByteBuffer block = ByteBuffer.allocate(maxLen);
+    while (block.hasRemaining()) {
+      if (channel.read(block) < 0) {
+        ended = true;
+        break;
+      }
+    }
+    if (block.position() == 0)
+      return null;
+    block.flip();
+    return block;
+  }
+
+  /**
+   * Close channel
+   * @throws IOException
+   */
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -1,40 +1,100 @@
 package logger;
 
 import java.io.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Asynchronous logger: lines are put into a lock-free ring buffer and written in batches
+ * by one writer thread which keeps the log file open. Buffer is flushed on JVM shutdown
+ */
 public class Logger {
-    private static String fileName; // Logger file
+    /**
+     * Levels of messages, lines below current level are dropped before queueing
+     */
+    public enum Level {
+        DEBUG,  // per block messages
+        INFO,
+        ERROR,
+        OFF
+    }
+
+    private static volatile String fileName; // Logger file
+    private static volatile PrintStream console = System.out; // Output of lines without logger file
     private static final String endl = "\n";
     private static final String errorTag = "Error: "; // Error tag for output
+    private static final int capacity = 1 << 13;      // Size of ring buffer, power of 2
+    private static final int mask = capacity - 1;
+    private static final long idleParkNanos = 10_000_000L;
+    private static final AtomicReferenceArray<String> ring = new AtomicReferenceArray<>(capacity);
+    private static final AtomicLong tail = new AtomicLong(); // Next slot to be claimed by producers
+    private static volatile long head;                       // Next slot to be written, changed by writer thread only
+    private static volatile long flushed;                    // All lines before it are flushed to file
+    private static volatile Level level = Level.INFO;
+    private static volatile boolean sleeping;                // Writer thread is parked
+    private static volatile boolean closed;
+    private static final Thread writer;
+
+    static {
+        writer = new Thread(Logger::drain, "logger-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Logger::close, "logger-shutdown"));
+    }
 
     /**
-     * Setting logger file
+     * Setting logger file, lines logged before are written to previous output
      * @param logName
      */
     public static void setLogFile (String logName) {
+        flush();
         fileName = logName;
     }
 
+    /**
+     * Setting output of lines without logger file, e.g. standard error when standard output carries data.
+     * Lines logged before are written to previous output
+     * @param stream
+     */
+    public static void setConsole (PrintStream stream) {
+        flush();
+        console = stream;
+    }
+
+    /**
+     * Setting minimal level of logged lines
+     * @param newLevel
+     */
+    public static void setLevel (Level newLevel) {
+        level = newLevel;
+    }
+
+    /**
+     * Check if lines of level are logged
+     * @param lineLevel
+     * @return boolean: true if lines of level are logged
+     */
+    public static boolean isEnabled (Level lineLevel) {
+        return lineLevel.compareTo(level) >= 0;
+    }
+
     /**
      * Write some data in logger file
      * @param data
      */
     public static void writeLn (String data) {
-        PrintStream logWriter;
-        try {
-           if (fileName == null) {
-              logWriter = System.out;
-           } else {
-              logWriter = new PrintStream(new BufferedOutputStream(new FileOutputStream(fileName, true)));
-           }
-
-           logWriter.println(data);
-           if (fileName != null)
-               logWriter.close();
-        } catch (IOException ex) {
-            System.out.println("logger.logger Error!");
-            System.out.println(ex);
-        }
+        if (isEnabled(Level.INFO))
+            offer(data);
+    }
+
+    /**
+     * Write debug data, e.g. per block messages, in logger file
+     * @param data
+     */
+    public static void debug (String data) {
+        if (isEnabled(Level.DEBUG))
+            offer(data);
     }
 
     /**
@@ -42,7 +102,8 @@ public class Logger {
      * @param error
      */
     public static void writeErrorLn (String error) {
-        writeLn(errorTag + error);
+        if (isEnabled(Level.ERROR))
+            offer(errorTag + error);
     }
 
     /**
@@ -52,4 +113,144 @@ public class Logger {
     public static void writeErrorLn (IOException error) {
         writeErrorLn(error.getMessage());
     }
+
+    /**
+     * Wait until all lines logged before are written to file
+     */
+    public static void flush () {
+        long target = tail.get();
+        while (flushed < target && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Write all queued lines and stop writer thread, later lines are written synchronously
+     */
+    public static void close () {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        // lines of producers which claimed slot while writer was stopping
+        for (long pos = head; pos < tail.get(); pos++) {
+            String line = ring.getAndSet((int) pos & mask, null);
+            if (line != null)
+                writeSync(line);
+        }
+    }
+
+    /**
+     * Put line into ring buffer, waits while buffer is full
+     * @param line
+     */
+    private static void offer (String line) {
+        long slot;
+        while (true) {
+            if (closed) {
+                writeSync(line);
+                return;
+            }
+            slot = tail.get();
+            if (slot - head >= capacity) {
+                LockSupport.unpark(writer);
+                Thread.yield();
+                continue;
+            }
+            if (tail.compareAndSet(slot, slot + 1))
+                break;
+        }
+        ring.set((int) slot & mask, line);
+        if (sleeping)
+            LockSupport.unpark(writer);
+    }
+
+    /**
+     * Writer thread function: write lines from ring buffer in batches, flush when buffer is empty
+     */
+    private static void drain () {
+        String openName = null;
+        PrintStream out = console;
+        boolean dirty = false;
+        while (true) {
+            long pos = head;
+            String line = ring.get((int) pos & mask);
+            if (line != null) {
+                if (fileName != openName || openName == null && out != console) {
+                    out.flush();
+                    if (!isStandard(out))
+                        out.close();
+                    openName = fileName;
+                    out = open(openName);
+                }
+                ring.set((int) pos & mask, null);
+                head = pos + 1;
+                out.print(line);
+                out.print(endl);
+                dirty = true;
+                continue;
+            }
+            if (pos != tail.get()) {
+                // slot is claimed, but line is not stored yet
+                Thread.yield();
+                continue;
+            }
+            if (dirty) {
+                out.flush();
+                dirty = false;
+            }
+            flushed = pos;
+            if (closed)
+                break;
+            sleeping = true;
+            if (pos == tail.get() && !closed)
+                LockSupport.parkNanos(Logger.class, idleParkNanos);
+            sleeping = false;
+        }
+        if (!isStandard(out))
+            out.close();
+    }
+
+    /**
+     * Check if stream is standard output or error, which are never closed
+     * @param stream
+     * @return boolean: true for standard stream
+     */
+    private static boolean isStandard (PrintStream stream) {
+        return stream == System.out || stream == System.err;
+    }
+
+    /**
+     * Open output for log file
+     * @param name: file name, null for console
+     * @return PrintStream: output
+     */
+    private static PrintStream open (String name) {
+        if (name == null)
+            return console;
+        try {
+            return new PrintStream(new BufferedOutputStream(new FileOutputStream(name, true), 1 << 16));
+        } catch (IOException ex) {
+            console.println("logger.logger Error!");
+            console.println(ex);
+            return console;
+        }
+    }
+
+    /**
+     * Write line directly to file after logger was closed
+     * @param line
+     */
+    private static synchronized void writeSync (String line) {
+        PrintStream logWriter = open(fileName);
+        logWriter.println(line);
+        if (!isStandard(logWriter))
+            logWriter.close();
+        else
+            logWriter.flush();
+    }
 }
@@ -0,0 +1,147 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of one executor: blocks, symbols and bytes in and out, time in code(...),
+ * time blocked on consumers and power-of-2 histogram of block latency.
+ * Recording costs a few uncontended adds per block, so metrics are always on
+ */
+public final class ExecutorMetrics implements ExecutorMetricsMBean {
+  private static final int buckets = 64;
+  private final LongAdder blocksIn = new LongAdder();
+  private final LongAdder symbolsIn = new LongAdder();
+  private final LongAdder bytesIn = new LongAdder();
+  private final LongAdder blocksOut = new LongAdder();
+  private final LongAdder symbolsOut = new LongAdder();
+  private final LongAdder bytesOut = new LongAdder();
+  private final LongAdder codeNanos = new LongAdder();
+  private final LongAdder blockedNanos = new LongAdder();
+  private final AtomicLongArray latency = new AtomicLongArray(buckets); // Bucket i counts times in [2^i, 2^(i+1))
+
+  /**
+   * Record coded block
+   * @param symbols: number of input elements
+   * @param bytes: size of input in bytes
+   * @param nanos: time in code(...)
+   */
+  public void recordCode(int symbols, long bytes, long nanos) {
+    blocksIn.increment();
+    symbolsIn.add(symbols);
+    bytesIn.add(bytes);
+    codeNanos.add(nanos);
+    latency.incrementAndGet(63 - Long.numberOfLeadingZeros(nanos | 1));
+  }
+
+  /**
+   * Record block passed to consumers or output
+   * @param symbols: number of output elements
+   * @param bytes: size of output in bytes
+   * @param nanos: time blocked on consumers
+   */
+  public void recordTransfer(int symbols, long bytes, long nanos) {
+    blocksOut.increment();
+    symbolsOut.add(symbols);
+    bytesOut.add(bytes);
+    blockedNanos.add(nanos);
+  }
+
+  @Override
+  public long getBlocksIn() {
+    return blocksIn.sum();
+  }
+
+  @Override
+  public long getSymbolsIn() {
+    return symbolsIn.sum();
+  }
+
+  @Override
+  public long getBytesIn() {
+    return bytesIn.sum();
+  }
+
+  @Override
+  public long getBlocksOut() {
+    return blocksOut.sum();
+  }
+
+  @Override
+  public long getSymbolsOut() {
+    return symbolsOut.sum();
+  }
+
+  @Override
+  public long getBytesOut() {
+    return bytesOut.sum();
+  }
+
+  @Override
+  public long getCodeNanos() {
+    return codeNanos.sum();
+  }
+
+  @Override
+  public long getBlockedNanos() {
+    return blockedNanos.sum();
+  }
+
+  @Override
+  public double getThroughputMBps() {
+    long nanos = codeNanos.sum();
+    return nanos == 0 ? 0 : bytesIn.sum() * 1e3 / nanos;
+  }
+
+  @Override
+  public long[] getLatencyHistogram() {
+    long[] histogram = new long[buckets];
+    for (int i = 0; i < buckets; i++)
+      histogram[i] = latency.get(i);
+    return histogram;
+  }
+
+  @Override
+  public long getLatencyPercentileNanos(double percent) {
+    long[] histogram = getLatencyHistogram();
+    long total = 0;
+    for (long count : histogram)
+      total += count;
+    if (total == 0)
+      return 0;
+    long rank = (long) Math.ceil(total * percent / 100);
+    long seen = 0;
+    for (int i = 0; i < buckets - 1; i++) {
+      seen += histogram[i];
+      if (seen >= rank)
+        return 1L << (i + 1);
+    }
+    return Long.MAX_VALUE;
+  }
+
+  @Override
+  public void reset() {
+    blocksIn.reset();
+    symbolsIn.reset();
+    bytesIn.reset();
+    blocksOut.reset();
+    symbolsOut.reset();
+    bytesOut.reset();
+    codeNanos.reset();
+    blockedNanos.reset();
+    for (int i = 0; i < buckets; i++)
+      latency.set(i, 0);
+  }
+
+  /**
+   * Get one line summary of counters
+   * @return String: summary
+   */
+  public String summary() {
+    return String.format("blocks in/out: %d/%d, symbols in/out: %d/%d, bytes in/out: %d/%d, code: %.1f ms, "
+            + "blocked: %.1f ms, throughput: %.1f MB/s, latency p50/p99: %d/%d us",
+        getBlocksIn(), getBlocksOut(), getSymbolsIn(), getSymbolsOut(), getBytesIn(), getBytesOut(),
+        getCodeNanos() / 1e6, getBlockedNanos() / 1e6, getThroughputMBps(),
+        getLatencyPercentileNanos(50) / 1000, getLatencyPercentileNanos(99) / 1000);
+  }
+}
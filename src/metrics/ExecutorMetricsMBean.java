@@ -0,0 +1,54 @@
+package metrics;
+
+/**
+ * JMX view of executor counters
+ */
+public interface ExecutorMetricsMBean {
+  long getBlocksIn();
+
+  long getSymbolsIn();
+
+  long getBytesIn();
+
+  long getBlocksOut();
+
+  long getSymbolsOut();
+
+  long getBytesOut();
+
+  /**
+   * Get time spent in code(...)
+   * @return long: nanoseconds
+   */
+  long getCodeNanos();
+
+  /**
+   * Get time spent passing blocks to consumers or output
+   * @return long: nanoseconds
+   */
+  long getBlockedNanos();
+
+  /**
+   * Get input bytes coded per second of code(...) time
+   * @return double: megabytes per second
+   */
+  double getThroughputMBps();
+
+  /**
+   * Get counts of blocks by code(...) time, bucket i holds times in [2^i, 2^(i+1)) nanoseconds
+   * @return long[]: 64 buckets
+   */
+  long[] getLatencyHistogram();
+
+  /**
+   * Get upper bound of block latency percentile
+   * @param percent: in (0, 100]
+   * @return long: nanoseconds, 0 if no blocks were coded
+   */
+  long getLatencyPercentileNanos(double percent);
+
+  /**
+   * Reset all counters
+   */
+  void reset();
+}
@@ -0,0 +1,199 @@
+package remote;
+
+import adapter.AdapterType;
+import executer.AbstractExecutor;
+import logger.Logger;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Base of executors linking conveyors of different processes through TCP socket.
+ * Sender opens connection with magic and element type, receiver answers with initial number of credits.
+ * Blocks go as frames: int number of elements followed by elements, big-endian, frame of -1 ends stream.
+ * Receiver rejects frames longer than its block, so its block must not be less than block of sender.
+ * Receiver grants one credit for every frame its conveyor has coded and answers -1 to end of stream.
+ * Sender never has more frames in flight than credits it was granted, so memory of both sides is bounded
+ */
+abstract class RemoteExecutor extends AbstractExecutor {
+  static final int magic = 0x43565231;           // "CVR1"
+  static final int endOfStream = -1;             // Frame length of end of stream and last answer of receiver
+  private static final String splitDelim = " |:|="; // Delimiter in config file
+  protected InetSocketAddress address;           // Address of receiver
+  protected boolean doubles;                     // Elements are doubles, bytes otherwise
+  protected int window = 8;                      // Credits of sender: frames in flight
+  protected long timeout = 30000;                // Time to wait for connection in milliseconds
+
+  private enum elementType {
+    BYTE,
+    DOUBLE
+  }
+
+  private enum confTypes {
+    ADDRESS,
+    ELEMENT,
+    WINDOW,
+    TIMEOUT,
+    BLOCK_SIZE,
+    TYPE
+  }
+
+  private static final Map<String, confTypes> configMap;    // Map config name to config type
+  private static final Map<String, elementType> elementMap; // Map element name to element type
+
+  static {
+    configMap = new HashMap<>();
+    configMap.put("address", confTypes.ADDRESS);
+    configMap.put("element", confTypes.ELEMENT);
+    configMap.put("window", confTypes.WINDOW);
+    configMap.put("timeout", confTypes.TIMEOUT);
+    configMap.put("block", confTypes.BLOCK_SIZE);
+    configMap.put("type", confTypes.TYPE);
+
+    elementMap = new HashMap<>();
+    elementMap.put("byte", elementType.BYTE);
+    elementMap.put("double", elementType.DOUBLE);
+  }
+
+  /**
+   * Set configs from file: 'address [host:]port', 'element byte|double', 'window N', 'timeout seconds', 'block N'
+   * @param confFile
+   * @throws IOException
+   */
+  private void setConfigs(String confFile) throws IOException {
+    BufferedReader configReader = new BufferedReader(new FileReader(confFile));
+    String line;
+    while ((line = configReader.readLine()) != null) {
+      String[] words = line.split(splitDelim);
+      if (words.length != 2 && words.length != 3)
+        throw new IOException("Wrong number of arguments in file: " + confFile + " at: " + line);
+      confTypes type = configMap.get(words[0]);
+      if (type == null)
+        throw new IOException("Unknown config: " + words[0] + " in file: " + confFile + " at: " + line);
+      switch (type) {
+        case ADDRESS: {
+          String host = words.length == 3 ? words[1] : "localhost";
+          address = new InetSocketAddress(host, Integer.parseInt(words[words.length - 1]));
+          break;
+        }
+        case ELEMENT: {
+          elementType et = elementMap.get(words[1]);
+          if (et == null)
+            throw new IOException("Unknown element: " + words[1] + " in file: " + confFile + " at: " + line + " byte|double expected");
+          doubles = et == elementType.DOUBLE;
+          break;
+        }
+        case WINDOW: {
+          window = Integer.parseInt(words[1]);
+          if (window < 1)
+            throw new IOException("Window must be positive in file: " + confFile + " at: " + line);
+          break;
+        }
+        case TIMEOUT: {
+          timeout = Long.parseLong(words[1]) * 1000;
+          break;
+        }
+        case BLOCK_SIZE: {
+          blockSize = Integer.parseInt(words[1]);
+          break;
+        }
+        case TYPE: {
+          // type of executor is chosen by transporter
+          break;
+        }
+      }
+    }
+    configReader.close();
+    if (address == null)
+      throw new IOException("No address in file: " + confFile);
+    if (blockSize <= 0)
+      blockSize = 1 << 16;
+    if (doubles && blockSize > Integer.MAX_VALUE / Double.BYTES)
+      throw new IOException("Block of doubles is too big in file: " + confFile);
+    Logger.writeLn("Configs have been set");
+  }
+
+  /**
+   * Set config file to executor
+   * @param configFile
+   * @throws IOException
+   */
+  @Override
+  public void setConfigFile(String configFile) throws IOException {
+    setConfigs(configFile);
+    // Types are listed in order of preference, shared blocks first, then bulk ones
+    if (doubles)
+      setTypes(new AdapterType[]{AdapterType.DOUBLE_BLOCK, AdapterType.DOUBLE_ARRAY, AdapterType.DOUBLE});
+    else
+      setTypes(new AdapterType[]{AdapterType.BYTE_BLOCK, AdapterType.BYTE_ARRAY, AdapterType.BYTE});
+    open();
+  }
+
+  /**
+   * Set readable or writable types of executor
+   * @param types: types of elements in order of preference
+   */
+  protected abstract void setTypes(AdapterType[] types);
+
+  /**
+   * Prepare connection once configs are set
+   * @throws IOException
+   */
+  protected abstract void open() throws IOException;
+
+  /**
+   * Write whole buffers to channel
+   * @param channel
+   * @param buffers
+   * @throws IOException
+   */
+  static void writeFully(SocketChannel channel, ByteBuffer... buffers) throws IOException {
+    ByteBuffer last = buffers[buffers.length - 1];
+    while (last.hasRemaining())
+      channel.write(buffers);
+  }
+
+  /**
+   * Fill buffer from channel
+   * @param channel
+   * @param buffer
+   * @throws IOException if connection is closed
+   */
+  static void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining())
+      if (channel.read(buffer) < 0)
+        throw new IOException("Connection closed by remote conveyor");
+  }
+
+  /**
+   * Read int from channel
+   * @param channel
+   * @param buffer: buffer of 4 bytes
+   * @return int: value
+   * @throws IOException if connection is closed
+   */
+  static int readInt(SocketChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.clear();
+    readFully(channel, buffer);
+    return buffer.getInt(0);
+  }
+
+  /**
+   * Write int to channel
+   * @param channel
+   * @param buffer: buffer of 4 bytes
+   * @param value
+   * @throws IOException
+   */
+  static void writeInt(SocketChannel channel, ByteBuffer buffer, int value) throws IOException {
+    buffer.clear();
+    buffer.putInt(value).flip();
+    writeFully(channel, buffer);
+  }
+}
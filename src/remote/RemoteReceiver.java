@@ -0,0 +1,170 @@
+package remote;
+
+import adapter.AdapterType;
+import executer.Executor;
+import executer.ExecutorProvider;
+import executer.SourceExecutor;
+import logger.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+/**
+ * Executor receiving blocks from conveyor of another process, see RemoteExecutor.
+ * It is the source of its conveyor and passes every received frame to its consumers
+ */
+public class RemoteReceiver extends RemoteExecutor implements SourceExecutor {
+  private ServerSocketChannel server;
+  private final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+  private ByteBuffer payload;               // Received doubles as bytes
+
+  @Override
+  protected void setTypes(AdapterType[] types) {
+    writableTypes.addAll(Arrays.asList(types));
+  }
+
+  /**
+   * Listen at address at once, so sender can connect before conveyor runs
+   * @throws IOException
+   */
+  @Override
+  protected void open() throws IOException {
+    server = ServerSocketChannel.open();
+    server.socket().setReuseAddress(true);
+    server.bind(address);
+  }
+
+  /**
+   * Wait for sender until timeout
+   * @return SocketChannel: connection in blocking mode
+   * @throws IOException if no sender connected
+   */
+  private SocketChannel accept() throws IOException {
+    server.configureBlocking(false);
+    try (Selector selector = Selector.open()) {
+      server.register(selector, SelectionKey.OP_ACCEPT);
+      if (selector.select(timeout) == 0)
+        throw new IOException("No sender connected to " + address + " in " + timeout / 1000 + " s");
+    }
+    SocketChannel channel = server.accept();
+    if (channel == null)
+      throw new IOException("No sender connected to " + address);
+    channel.configureBlocking(true);
+    channel.socket().setTcpNoDelay(true);
+    return channel;
+  }
+
+  /**
+   * Receive frames, consumers code every frame before transfer returns or on their own threads
+   * @throws IOException
+   */
+  @Override
+  public void run() throws IOException {
+    produce(() -> {
+    });
+  }
+
+  /**
+   * Receive frames and pass them to consumers until end of stream, input of conveyor is not read.
+   * Credit for frame is granted once consumers coded it
+   * @param drain: runs work of consumers pending in conveyor
+   * @throws IOException
+   */
+  @Override
+  public void produce(Drain drain) throws IOException {
+    SocketChannel channel = accept();
+    try {
+      ByteBuffer hello = ByteBuffer.allocate(Integer.BYTES + 1);
+      readFully(channel, hello);
+      if (hello.getInt(0) != magic)
+        throw new IOException("Not a conveyor sender connected to " + address);
+      if ((hello.get(Integer.BYTES) == 1) != doubles)
+        throw new IOException("Sender and receiver at " + address + " have different elements");
+      writeInt(channel, header, window);
+      Logger.writeLn("Sender connected to " + address);
+
+      long frames = 0;
+      int len;
+      while ((len = readInt(channel, header)) != endOfStream) {
+        if (len < 0)
+          throw new IOException("Broken frame from sender at " + address);
+        if (len > blockSize)
+          throw new IOException("Frame of " + len + " elements from sender at " + address + " is longer than block " + blockSize);
+        receive(channel, len);
+        transfer();
+        drain.run();
+        writeInt(channel, header, 1);
+        frames++;
+      }
+      writeInt(channel, header, endOfStream);
+      Logger.writeLn("Received " + frames + " frames at " + address);
+    } finally {
+      channel.close();
+      server.close();
+    }
+  }
+
+  /**
+   * Read frame into dataOut
+   * @param channel
+   * @param len: number of elements
+   * @throws IOException
+   */
+  private void receive(SocketChannel channel, int len) throws IOException {
+    dataLen = len;
+    dataOutLen = len;
+    if (!doubles) {
+      byte[] bytes = outputBytes(len);
+      readFully(channel, ByteBuffer.wrap(bytes, 0, len));
+      dataOut = bytes;
+      return;
+    }
+    if (payload == null || payload.capacity() < len * Double.BYTES)
+      payload = ByteBuffer.allocateDirect(len * Double.BYTES);
+    payload.clear();
+    payload.limit(len * Double.BYTES);
+    readFully(channel, payload);
+    payload.flip();
+    double[] values = outputDoubles(len);
+    payload.asDoubleBuffer().get(values, 0, len);
+    dataOut = values;
+  }
+
+  /**
+   * Receiver has no providers, conveyor with providers of source is rejected by Transporter
+   * @param data
+   * @return Object: never returns
+   * @throws UncheckedIOException always
+   */
+  @Override
+  public Object code(Object data) {
+    throw new UncheckedIOException(new IOException("Remote receiver can't have providers"));
+  }
+
+  @Override
+  public void complete() throws IOException {
+    if (server.isOpen())
+      server.close();
+  }
+
+  /**
+   * Provider of 'receive' executor type
+   */
+  public static class Provider implements ExecutorProvider {
+    @Override
+    public String getType() {
+      return "receive";
+    }
+
+    @Override
+    public Executor create(String inputFileName) {
+      return new RemoteReceiver();
+    }
+  }
+}
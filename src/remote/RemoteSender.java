@@ -0,0 +1,166 @@
+package remote;
+
+import adapter.AdapterType;
+import executer.Executor;
+import executer.ExecutorProvider;
+import logger.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+/**
+ * Executor sending its input to conveyor of another process, see RemoteExecutor.
+ * It is the last executor of its conveyor, remote receiver passes blocks to its consumers
+ */
+public class RemoteSender extends RemoteExecutor {
+  private SocketChannel channel;
+  private final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+  private final ByteBuffer answer = ByteBuffer.allocate(Integer.BYTES);
+  private ByteBuffer payload;               // Doubles of block as bytes
+  private int credits;                      // Frames sender may send before next answer of receiver
+  private long frames, waits;               // Numbers of sent frames and of waits for credit
+
+  @Override
+  protected void setTypes(AdapterType[] types) {
+    readableTypes.addAll(Arrays.asList(types));
+  }
+
+  /**
+   * Connection is opened with the first block, receiver may start later than sender
+   */
+  @Override
+  protected void open() {
+  }
+
+  /**
+   * Connect to receiver, retrying until timeout
+   * @throws IOException if receiver is not available
+   */
+  private void connect() throws IOException {
+    long deadline = System.currentTimeMillis() + timeout;
+    while (true) {
+      try {
+        channel = SocketChannel.open(address);
+        break;
+      } catch (ConnectException ex) {
+        if (System.currentTimeMillis() >= deadline)
+          throw new IOException("Can't connect to receiver at " + address + ": " + ex.getMessage());
+        try {
+          Thread.sleep(100);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Connection to receiver was interrupted");
+        }
+      }
+    }
+    channel.socket().setTcpNoDelay(true);
+    ByteBuffer hello = ByteBuffer.allocate(Integer.BYTES + 1);
+    hello.putInt(magic).put((byte) (doubles ? 1 : 0)).flip();
+    writeFully(channel, hello);
+    credits = readInt(channel, answer);
+    if (credits < 1)
+      throw new IOException("Receiver at " + address + " refused connection");
+    Logger.writeLn("Connected to receiver at " + address + ", window: " + credits);
+  }
+
+  /**
+   * Send block to receiver, network errors are thrown as UncheckedIOException and close connection
+   * @param data: ByteBuffer or DoubleBuffer, first dataLen elements are sent
+   * @return Object: empty block, sender has no output
+   */
+  @Override
+  public Object code(Object data) {
+    try {
+      send(data);
+    } catch (IOException ex) {
+      closeChannel();
+      throw new UncheckedIOException(ex);
+    }
+    dataOutLen = 0;
+    return outputBytes(0);
+  }
+
+  private void send(Object data) throws IOException {
+    if (channel == null)
+      connect();
+    ByteBuffer bytes;
+    if (data instanceof ByteBuffer) {
+      bytes = ((ByteBuffer) data).duplicate();
+      bytes.position(0);
+      bytes.limit(dataLen);
+    } else {
+      if (payload == null || payload.capacity() < dataLen * Double.BYTES)
+        payload = ByteBuffer.allocateDirect(dataLen * Double.BYTES);
+      DoubleBuffer src = ((DoubleBuffer) data).duplicate();
+      src.position(0);
+      src.limit(dataLen);
+      payload.clear();
+      payload.asDoubleBuffer().put(src);
+      payload.limit(dataLen * Double.BYTES);
+      bytes = payload;
+    }
+    // flow control: wait until receiver has coded enough frames
+    if (credits == 0)
+      waits++;
+    while (credits == 0) {
+      int granted = readInt(channel, answer);
+      if (granted == endOfStream)
+        throw new IOException("Receiver at " + address + " finished before end of stream");
+      credits += granted;
+    }
+    header.clear();
+    header.putInt(dataLen).flip();
+    writeFully(channel, header, bytes);
+    credits--;
+    frames++;
+  }
+
+  /**
+   * Send end of stream and wait until receiver has coded all frames
+   * @throws IOException
+   */
+  @Override
+  public void complete() throws IOException {
+    try {
+      if (channel == null)
+        connect();
+      writeInt(channel, header, endOfStream);
+      while (readInt(channel, answer) != endOfStream)
+        ;
+    } finally {
+      closeChannel();
+    }
+    Logger.writeLn("Sent " + frames + " frames to " + address + ", waited for credit " + waits + " times");
+  }
+
+  /**
+   * Close connection, also after error in the middle of stream, errors of closing are ignored
+   */
+  private void closeChannel() {
+    try {
+      if (channel != null)
+        channel.close();
+    } catch (IOException ignored) {
+    }
+  }
+
+  /**
+   * Provider of 'send' executor type
+   */
+  public static class Provider implements ExecutorProvider {
+    @Override
+    public String getType() {
+      return "send";
+    }
+
+    @Override
+    public Executor create(String inputFileName) {
+      return new RemoteSender();
+    }
+  }
+}
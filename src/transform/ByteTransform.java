@@ -0,0 +1,153 @@
+package transform;
+
+import adapter.AdapterType;
+import executer.AbstractExecutor;
+import logger.Logger;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Base of byte-to-byte transforms placed ahead of entropy coder. Transform works on primitive arrays,
+ * its state carries over between blocks, so blocks of decoder need not match blocks of encoder
+ */
+abstract class ByteTransform extends AbstractExecutor {
+  private static final String splitDelim = " |:|="; // Delimiter in config file
+  protected boolean decode;                         // Target is decode, encode otherwise
+  private byte[] bytesIn;                           // Copy of input block which has no array
+
+  private enum targetType {
+    ENCODE,
+    DECODE
+  }
+
+  private enum confTypes {
+    TARGET,
+    BLOCK_SIZE,
+    TYPE
+  }
+
+  private static final Map<String, targetType> tMap;     // Map target name to target type
+  private static final Map<String, confTypes> configMap; // Map config name to config type
+
+  static {
+    tMap = new HashMap<>();
+    tMap.put("encode", targetType.ENCODE);
+    tMap.put("decode", targetType.DECODE);
+
+    configMap = new HashMap<>();
+    configMap.put("target", confTypes.TARGET);
+    configMap.put("block", confTypes.BLOCK_SIZE);
+    configMap.put("type", confTypes.TYPE);
+  }
+
+  /**
+   * Set configs from file: 'target encode|decode', 'block N'
+   * @param confFile
+   * @throws IOException
+   */
+  private void setConfigs(String confFile) throws IOException {
+    BufferedReader configReader = new BufferedReader(new FileReader(confFile));
+    String line;
+    while ((line = configReader.readLine()) != null) {
+      String[] words = line.split(splitDelim);
+      if (words.length != 2)
+        throw new IOException("Wrong number of arguments in file: " + confFile + " at: " + line);
+      confTypes type = configMap.get(words[0]);
+      if (type == null)
+        throw new IOException("Unknown config: " + words[0] + " in file: " + confFile + " at: " + line);
+      switch (type) {
+        case TARGET: {
+          targetType target = tMap.get(words[1]);
+          if (target == null)
+            throw new IOException("Unknown target: " + words[1] + " in file: " + confFile + " at: " + line + " decode|encode expected");
+          decode = target == targetType.DECODE;
+          break;
+        }
+        case BLOCK_SIZE: {
+          blockSize = Integer.parseInt(words[1]);
+          break;
+        }
+        case TYPE: {
+          // type of executor is chosen by transporter
+          break;
+        }
+      }
+    }
+    configReader.close();
+    if (blockSize <= 0)
+      throw new IOException("Positive block size expected in file: " + confFile);
+    // Types are listed in order of preference, shared blocks first, then bulk ones
+    readableTypes.add(AdapterType.BYTE_BLOCK);
+    readableTypes.add(AdapterType.BYTE_ARRAY);
+    readableTypes.add(AdapterType.BYTE);
+    writableTypes.add(AdapterType.BYTE_BLOCK);
+    writableTypes.add(AdapterType.BYTE_ARRAY);
+    writableTypes.add(AdapterType.BYTE);
+    Logger.writeLn("Configs have been set");
+  }
+
+  /**
+   * Set config file to executor
+   * @param configFile
+   * @throws IOException
+   */
+  @Override
+  public void setConfigFile(String configFile) throws IOException {
+    setConfigs(configFile);
+  }
+
+  /**
+   * State of transform carries over between blocks
+   * @return boolean: true
+   */
+  @Override
+  public boolean isStateful() {
+    return true;
+  }
+
+  /**
+   * Transform block
+   * @param data: ByteBuffer from index 0, first dataLen bytes are used
+   * @return Object: byte[] of dataOutLen bytes
+   */
+  @Override
+  public Object code(Object data) {
+    ByteBuffer buf = (ByteBuffer) data;
+    byte[] in;
+    int off;
+    if (buf.hasArray()) {
+      in = buf.array();
+      off = buf.arrayOffset() + buf.position();
+    } else {
+      if (bytesIn == null || bytesIn.length < dataLen)
+        bytesIn = new byte[dataLen];
+      buf.duplicate().get(bytesIn, 0, dataLen);
+      in = bytesIn;
+      off = 0;
+    }
+    return decode ? decode(in, off, dataLen) : encode(in, off, dataLen);
+  }
+
+  /**
+   * Encode bytes, dataOutLen is set to length of output
+   * @param in
+   * @param off
+   * @param len
+   * @return byte[]: array taken from outputBytes
+   */
+  protected abstract byte[] encode(byte[] in, int off, int len);
+
+  /**
+   * Decode bytes, dataOutLen is set to length of output
+   * @param in
+   * @param off
+   * @param len
+   * @return byte[]: array taken from outputBytes
+   */
+  protected abstract byte[] decode(byte[] in, int off, int len);
+}
@@ -0,0 +1,66 @@
+package transform;
+
+import executer.Executor;
+import executer.ExecutorProvider;
+
+/**
+ * Move-to-front transform: every byte is replaced by its index in list of recently used bytes and
+ * moved to the front of list. Repeated and recently used bytes become small numbers, so following
+ * run-length or entropy coder gets a skewed distribution
+ */
+public class MoveToFront extends ByteTransform {
+  private final byte[] list;                // Bytes in order of recent use, kept between blocks
+
+  public MoveToFront() {
+    list = new byte[256];
+    for (int i = 0; i < 256; i++)
+      list[i] = (byte) i;
+  }
+
+  @Override
+  protected byte[] encode(byte[] in, int off, int len) {
+    byte[] out = outputBytes(len);
+    byte[] l = list;
+    for (int i = 0; i < len; i++) {
+      byte c = in[off + i];
+      int idx = 0;
+      while (l[idx] != c)
+        idx++;
+      System.arraycopy(l, 0, l, 1, idx);
+      l[0] = c;
+      out[i] = (byte) idx;
+    }
+    dataOutLen = len;
+    return out;
+  }
+
+  @Override
+  protected byte[] decode(byte[] in, int off, int len) {
+    byte[] out = outputBytes(len);
+    byte[] l = list;
+    for (int i = 0; i < len; i++) {
+      int idx = in[off + i] & 0xFF;
+      byte c = l[idx];
+      System.arraycopy(l, 0, l, 1, idx);
+      l[0] = c;
+      out[i] = c;
+    }
+    dataOutLen = len;
+    return out;
+  }
+
+  /**
+   * Provider of 'mtf' executor type
+   */
+  public static class Provider implements ExecutorProvider {
+    @Override
+    public String getType() {
+      return "mtf";
+    }
+
+    @Override
+    public Executor create(String inputFileName) {
+      return new MoveToFront();
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package transform;
+
+import executer.Executor;
+import executer.ExecutorProvider;
+
+/**
+ * Run-length coding of bytes: two equal bytes in a row are followed by count of further repeats (0..255).
+ * Run in progress is closed at the end of every block, so encoder never holds bytes,
+ * decoder keeps the last byte and a pending count between blocks
+ */
+public class RunLengthCoder extends ByteTransform {
+  private static final int maxCount = 255;
+  private int prev = -1;                    // Previous byte which may start a pair, -1 if none
+  private boolean counting;                 // Encoder: pair is written, repeats are being counted; decoder: count is next
+  private int count;                        // Encoder: repeats after pair
+
+  /**
+   * Encode block, at most 3 bytes are written for every 2 bytes of input
+   */
+  @Override
+  protected byte[] encode(byte[] in, int off, int len) {
+    byte[] out = outputBytes(len + len / 2 + 2);
+    int pos = 0;
+    for (int i = off; i < off + len; i++) {
+      int c = in[i] & 0xFF;
+      if (counting) {
+        if (c == prev && count < maxCount) {
+          count++;
+          continue;
+        }
+        out[pos++] = (byte) count;
+        counting = false;
+        prev = -1;
+      }
+      out[pos++] = (byte) c;
+      if (c == prev) {
+        counting = true;
+        count = 0;
+      } else {
+        prev = c;
+      }
+    }
+    if (counting) {
+      out[pos++] = (byte) count;
+      counting = false;
+      prev = -1;
+    }
+    dataOutLen = pos;
+    return out;
+  }
+
+  /**
+   * Decode block, length of output is counted first
+   */
+  @Override
+  protected byte[] decode(byte[] in, int off, int len) {
+    // the first pass finds length of output without changing state
+    int size = 0, p = prev;
+    boolean pending = counting;
+    for (int i = off; i < off + len; i++) {
+      int c = in[i] & 0xFF;
+      if (pending) {
+        size += c;
+        pending = false;
+        p = -1;
+        continue;
+      }
+      size++;
+      if (c == p)
+        pending = true;
+      else
+        p = c;
+    }
+
+    byte[] out = outputBytes(size);
+    int pos = 0;
+    for (int i = off; i < off + len; i++) {
+      int c = in[i] & 0xFF;
+      if (counting) {
+        for (int j = 0; j < c; j++)
+          out[pos++] = (byte) prev;
+        counting = false;
+        prev = -1;
+        continue;
+      }
+      out[pos++] = (byte) c;
+      if (c == prev)
+        counting = true;
+      else
+        prev = c;
+    }
+    dataOutLen = pos;
+    return out;
+  }
+
+  /**
+   * Provider of 'rle' executor type
+   */
+  public static class Provider implements ExecutorProvider {
+    @Override
+    public String getType() {
+      return "rle";
+    }
+
+    @Override
+    public Executor create(String inputFileName) {
+      return new RunLengthCoder();
+    }
+  }
+}
@@ -0,0 +1,308 @@
+package transporter;
+
+import adapter.AdapterType;
+import adapter.BlockAdapter;
+import adapter.ByteAdapter;
+import adapter.ByteArrayAdapter;
+import adapter.DoubleAdapter;
+import adapter.DoubleArrayAdapter;
+import adapter.SharedBlock;
+import executer.Executor;
+import io.BlockInput;
+import io.ChannelOutput;
+import metrics.ExecutorMetrics;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Edge of pipelined or scheduled conveyor: puts every block of provider into the queue of consumer stage.
+ * Shared blocks are queued by reference, other types are copied
+ */
+class Link implements Executor {
+  private final Target target;          // Stage of consumer
+  private Object upstreamAdapter;       // Adapter of provider
+  private AdapterType type;             // Negotiated adapter type
+  private Block current;                // Block which consumer is reading now
+
+  /**
+   * Block of data in queue
+   */
+  static class Block {
+    final Link link;          // Link which block came through, null for end of stream
+    final SharedBlock data;   // Reference held by queue
+
+    Block(Link link, SharedBlock data) {
+      this.link = link;
+      this.data = data;
+    }
+  }
+
+  /**
+   * Stage receiving blocks of link
+   */
+  interface Target {
+    /**
+     * Get executor of stage, it reads blocks of link
+     * @return Executor: executor
+     */
+    Executor getExecutor();
+
+    /**
+     * Put block into queue of stage, may wait for free space
+     * @param block
+     * @throws InterruptedException
+     */
+    void offer(Block block) throws InterruptedException;
+  }
+
+  class LinkAdapterClass implements ByteAdapter, ByteArrayAdapter, DoubleAdapter, DoubleArrayAdapter, BlockAdapter {
+    int index = 0;  // current index in current block
+
+    /**
+     * Get next byte from current block
+     * @return Byte: next byte if exists, null otherwise
+     */
+    @Override
+    public Byte getNextByte() {
+      if (index == current.data.length()) {
+        index = 0;
+        return null;
+      }
+      return current.data.getByte(index++);
+    }
+
+    /**
+     * Get next double from current block
+     * @return Double: next double if exists, null otherwise
+     */
+    @Override
+    public Double getNextDouble() {
+      if (index == current.data.length()) {
+        index = 0;
+        return null;
+      }
+      return current.data.getDouble(index++);
+    }
+
+    /**
+     * Get current block without copying
+     * @return SharedBlock: block retained for caller
+     */
+    @Override
+    public SharedBlock getBlock() {
+      return current.data.retain();
+    }
+
+    /**
+     * Read next bytes from current block
+     * @param dst
+     * @param off
+     * @param len
+     * @return int: number of bytes read, -1 if there are no more bytes
+     */
+    @Override
+    public int read(byte[] dst, int off, int len) {
+      return readArray(dst, off, len);
+    }
+
+    /**
+     * Read next doubles from current block
+     * @param dst
+     * @param off
+     * @param len
+     * @return int: number of doubles read, -1 if there are no more doubles
+     */
+    @Override
+    public int read(double[] dst, int off, int len) {
+      return readArray(dst, off, len);
+    }
+
+    private int readArray(Object dst, int off, int len) {
+      if (index == current.data.length()) {
+        index = 0;
+        return -1;
+      }
+      int n = Math.min(len, current.data.length() - index);
+      current.data.copyTo(index, dst, off, n);
+      index += n;
+      return n;
+    }
+  }
+
+  /**
+   * Link constructor
+   * @param target: stage of consumer
+   */
+  Link(Target target) {
+    this.target = target;
+  }
+
+  /**
+   * Set block which consumer will read
+   * @param block
+   */
+  void setCurrent(Block block) {
+    current = block;
+  }
+
+  /**
+   * Send end of stream to consumer stage
+   * @throws IOException
+   */
+  void finish() throws IOException {
+    enqueue(new Block(null, null));
+  }
+
+  /**
+   * Set consumer to link, link writes the same type it reads from provider
+   * @param consumer
+   * @throws IOException
+   */
+  @Override
+  public void setConsumer(Executor consumer) throws IOException {
+    if (type == null || !consumer.getReadableTypes().contains(type))
+      throw new IOException("Can't communicate, wrong transporter structure");
+    consumer.setAdapter(this, new LinkAdapterClass(), type);
+  }
+
+  /**
+   * Set adapter of provider
+   * @param provider
+   * @param adapter
+   * @param typeOfAdapter
+   */
+  @Override
+  public void setAdapter(Executor provider, Object adapter, AdapterType typeOfAdapter) {
+    upstreamAdapter = adapter;
+    type = typeOfAdapter;
+  }
+
+  /**
+   * Get readable types, same as consumer ones
+   * @return ArrayList<AdapterType>: readable types
+   */
+  @Override
+  public ArrayList<AdapterType> getReadableTypes() {
+    return target.getExecutor().getReadableTypes();
+  }
+
+  @Override
+  public void setConfigFile(String configFile) throws IOException {
+    throw new IOException("Link has no configs");
+  }
+
+  @Override
+  public void setOutput(ChannelOutput output) {
+  }
+
+  @Override
+  public void setInput(BlockInput input) {
+  }
+
+  @Override
+  public void run() throws IOException {
+    throw new IOException("Link can't be run");
+  }
+
+  @Override
+  public ExecutorMetrics getMetrics() {
+    return null;
+  }
+
+  @Override
+  public void complete() {
+  }
+
+  @Override
+  public boolean isStateful() {
+    return false;
+  }
+
+  /**
+   * Put block of provider into consumer queue, blocks while queue is full
+   * @param provider
+   * @throws IOException
+   */
+  @Override
+  public void put(Executor provider) throws IOException {
+    switch (type) {
+      case BYTE_BLOCK:
+      case DOUBLE_BLOCK: {
+        enqueue(new Block(this, ((BlockAdapter) upstreamAdapter).getBlock()));
+        break;
+      }
+      case BYTE_ARRAY: {
+        ByteArrayAdapter byteAdapter = (ByteArrayAdapter) upstreamAdapter;
+        byte[] data = new byte[64];
+        int len = 0, n;
+        while ((n = byteAdapter.read(data, len, data.length - len)) >= 0) {
+          len += n;
+          if (len == data.length)
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        enqueue(new Block(this, new SharedBlock(data, len, null)));
+        break;
+      }
+      case BYTE: {
+        ByteAdapter byteAdapter = (ByteAdapter) upstreamAdapter;
+        byte[] data = new byte[64];
+        int len = 0;
+        Byte cur;
+        while ((cur = byteAdapter.getNextByte()) != null) {
+          if (len == data.length)
+            data = Arrays.copyOf(data, data.length * 2);
+          data[len++] = cur;
+        }
+        enqueue(new Block(this, new SharedBlock(data, len, null)));
+        break;
+      }
+      case DOUBLE_ARRAY: {
+        DoubleArrayAdapter doubleAdapter = (DoubleArrayAdapter) upstreamAdapter;
+        double[] data = new double[64];
+        int len = 0, n;
+        while ((n = doubleAdapter.read(data, len, data.length - len)) >= 0) {
+          len += n;
+          if (len == data.length)
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        enqueue(new Block(this, new SharedBlock(data, len, null)));
+        break;
+      }
+      case DOUBLE: {
+        DoubleAdapter doubleAdapter = (DoubleAdapter) upstreamAdapter;
+        double[] data = new double[64];
+        int len = 0;
+        Double cur;
+        while ((cur = doubleAdapter.getNextDouble()) != null) {
+          if (len == data.length)
+            data = Arrays.copyOf(data, data.length * 2);
+          data[len++] = cur;
+        }
+        enqueue(new Block(this, new SharedBlock(data, len, null)));
+        break;
+      }
+      default: {
+        throw new IOException("Cant work with type: " + type);
+      }
+    }
+  }
+
+  /**
+   * Put block into consumer queue
+   * @param block
+   * @throws IOException
+   */
+  private void enqueue(Block block) throws IOException {
+    try {
+      target.offer(block);
+    } catch (InterruptedException ex) {
+      if (block.data != null)
+        block.data.release();
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Conveyor was interrupted");
+    }
+  }
+}
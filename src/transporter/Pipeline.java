@@ -0,0 +1,161 @@
+package transporter;
+
+import executer.Executor;
+import logger.Logger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Pipelined execution of conveyor: every executor or fused chain of executors runs on its own thread,
+ * stages communicate through bounded queues of blocks. Every stage has at most one provider, Transporter rejects
+ * merging executors: they would code blocks in order of arrival and output would differ from direct mode
+ */
+class Pipeline {
+  private final ArrayList<Stage> stages;       // Stages in order of executors
+  private final Map<Executor, Stage> stageMap; // Map of executors to their stages
+  private final int queueSize;
+  private volatile Throwable failure;          // First error of any stage
+
+  /**
+   * Stage of pipeline: thread of one executor
+   */
+  class Stage implements Runnable, Link.Target {
+    private final Executor executor;
+    private final ArrayList<Executor> group;       // Executors of stage, fused chain starting with executor
+    private final BlockingQueue<Link.Block> queue; // Incoming blocks
+    private final ArrayList<Link> outputs;         // Links to consumers
+    private int providers;                         // Number of links to this stage
+    private boolean root;                          // Stage reads conveyor input
+    private Thread thread;
+
+    Stage(ArrayList<Executor> group) {
+      this.group = group;
+      executor = group.get(0);
+      queue = new ArrayBlockingQueue<>(queueSize);
+      outputs = new ArrayList<>();
+    }
+
+    @Override
+    public Executor getExecutor() {
+      return executor;
+    }
+
+    @Override
+    public void offer(Link.Block block) throws InterruptedException {
+      queue.put(block);
+    }
+
+    /**
+     * Stage thread function: run executor on every incoming block until all providers finished,
+     * then complete executors of stage, so blocks they transfer reach consumers before end of stream
+     */
+    @Override
+    public void run() {
+      try {
+        if (root)
+          executor.run();
+        int active = providers;
+        while (active > 0) {
+          Link.Block block = queue.take();
+          if (block.link == null) {
+            active--;
+            continue;
+          }
+          block.link.setCurrent(block);
+          try {
+            executor.put(block.link);
+          } finally {
+            block.link.setCurrent(null);
+            block.data.release();
+          }
+        }
+        for (Executor ex : group)
+          ex.complete();
+        for (Link link : outputs)
+          link.finish();
+      } catch (InterruptedException | InterruptedIOException ex) {
+        Thread.currentThread().interrupt();
+      } catch (IOException | RuntimeException ex) {
+        fail(ex);
+      }
+    }
+  }
+
+  /**
+   * Pipeline constructor
+   * @param groups: executors of every stage, fused chain shares one stage,
+   * first executor of first group reads input
+   * @param queueSize: capacity of queue of every stage in blocks
+   */
+  Pipeline(ArrayList<ArrayList<Executor>> groups, int queueSize) {
+    this.queueSize = queueSize;
+    stages = new ArrayList<>();
+    stageMap = new HashMap<>();
+    for (ArrayList<Executor> group : groups) {
+      Stage stage = new Stage(group);
+      stages.add(stage);
+      for (Executor ex : group)
+        stageMap.put(ex, stage);
+    }
+    stages.get(0).root = true;
+  }
+
+  /**
+   * Connect provider and consumer through link
+   * @param provider
+   * @param consumer
+   * @throws IOException
+   */
+  void connect(Executor provider, Executor consumer) throws IOException {
+    Stage target = stageMap.get(consumer);
+    Link link = new Link(target);
+    provider.setConsumer(link);
+    link.setConsumer(consumer);
+    stageMap.get(provider).outputs.add(link);
+    target.providers++;
+  }
+
+  /**
+   * Start all stages and wait for them
+   * @throws IOException in case of error in any stage
+   */
+  void run() throws IOException {
+    for (int i = 0; i < stages.size(); i++) {
+      Stage stage = stages.get(i);
+      stage.thread = new Thread(stage, "conveyor-stage-" + (i + 1));
+      stage.thread.start();
+    }
+    try {
+      for (Stage stage : stages)
+        stage.thread.join();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      fail(ex);
+      throw new InterruptedIOException("Conveyor was interrupted");
+    }
+    if (failure instanceof IOException)
+      throw (IOException) failure;
+    if (failure != null)
+      throw new IOException("Stage error: " + failure, failure);
+  }
+
+  /**
+   * Remember first error and stop all stages
+   * @param ex
+   */
+  private synchronized void fail(Throwable ex) {
+    if (failure != null)
+      return;
+    failure = ex;
+    Logger.writeLn("Pipeline stage failed, stopping conveyor");
+    for (Stage stage : stages)
+      if (stage.thread != null)
+        stage.thread.interrupt();
+  }
+}
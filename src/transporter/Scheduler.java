@@ -0,0 +1,301 @@
+package transporter;
+
+import adapter.SharedBlock;
+import executer.Executor;
+import executer.SourceExecutor;
+import io.BlockInput;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Scheduled execution of conveyor on caller thread: executors exchange blocks through
+ * work queues of stages and a policy chooses the next stage to run. Every task runs from
+ * the scheduler loop, so stack depth does not grow with depth of conveyor
+ */
+class Scheduler {
+  private final ArrayList<Stage> stages;       // Stages in order of groups, stages.get(0) reads input
+  private final Map<Executor, Stage> stageMap; // Map of executors to their stages
+  private final Policy policy;
+  private final int batch;                     // Minimal number of elements coded at once, 0 for no batching
+
+  /**
+   * Order of stages with pending blocks
+   */
+  interface Policy {
+    /**
+     * Add stage which got pending blocks during current task
+     * @param stage
+     */
+    void add(Stage stage);
+
+    /**
+     * Get next stage to run
+     * @return Stage: stage, null if no stage has pending blocks
+     */
+    Stage poll();
+  }
+
+  /**
+   * Depth first order: stages readied by a task run before older ones, in order they were readied.
+   * It is the order of synchronous push of direct mode, so output is the same
+   */
+  static class DepthFirstPolicy implements Policy {
+    private final ArrayList<Stage> fresh = new ArrayList<>(); // Readied by current task
+    private final ArrayDeque<Stage> stack = new ArrayDeque<>();
+
+    @Override
+    public void add(Stage stage) {
+      fresh.add(stage);
+    }
+
+    @Override
+    public Stage poll() {
+      for (int i = fresh.size() - 1; i >= 0; i--)
+        stack.push(fresh.get(i));
+      fresh.clear();
+      return stack.poll();
+    }
+  }
+
+  /**
+   * First in first out order: stages run in order they were readied
+   */
+  static class FifoPolicy implements Policy {
+    private final ArrayDeque<Stage> queue = new ArrayDeque<>();
+
+    @Override
+    public void add(Stage stage) {
+      queue.add(stage);
+    }
+
+    @Override
+    public Stage poll() {
+      return queue.poll();
+    }
+  }
+
+  /**
+   * Stage of scheduler: executor or fused chain with queue of incoming blocks
+   */
+  class Stage implements Link.Target {
+    private final Executor executor;
+    private final ArrayList<Executor> group;    // Executors of stage, fused chain starting with executor
+    private final ArrayDeque<Link.Block> queue; // Incoming blocks
+    private final ArrayList<Link> outputs;      // Links to consumers
+    private int providers;                      // Number of links to this stage
+    private long pending;                       // Number of elements in queue
+    private int ends;                           // Number of end of stream marks in queue
+    private boolean scheduled;                  // Stage is in policy
+
+    Stage(ArrayList<Executor> group) {
+      this.group = group;
+      executor = group.get(0);
+      queue = new ArrayDeque<>();
+      outputs = new ArrayList<>();
+    }
+
+    @Override
+    public Executor getExecutor() {
+      return executor;
+    }
+
+    /**
+     * Put block into queue, stage is scheduled once it has enough data
+     * @param block
+     */
+    @Override
+    public void offer(Link.Block block) {
+      queue.add(block);
+      if (block.link == null)
+        ends++;
+      else
+        pending += block.data.length();
+      schedule();
+    }
+
+    private void schedule() {
+      if (!scheduled && isReady()) {
+        scheduled = true;
+        policy.add(this);
+      }
+    }
+
+    /**
+     * Check if stage can run: it has a block and, with batching, enough elements or end of stream
+     * @return boolean: true if stage can run
+     */
+    private boolean isReady() {
+      return !queue.isEmpty() && (batch == 0 || pending >= batch || ends > 0);
+    }
+
+    /**
+     * Run executor on next block of queue, small blocks of the same link are merged up to batch size.
+     * After the last end of stream executors of stage are completed and consumers are told the end
+     * @throws IOException
+     */
+    private void step() throws IOException {
+      Link.Block block = queue.poll();
+      if (block.link == null) {
+        ends--;
+        if (--providers == 0)
+          finish();
+        return;
+      }
+      SharedBlock data = block.data;
+      pending -= data.length();
+      if (batch > 0 && data.length() < batch)
+        data = merge(block.link, data);
+      block.link.setCurrent(new Link.Block(block.link, data));
+      try {
+        executor.put(block.link);
+      } finally {
+        block.link.setCurrent(null);
+        data.release();
+      }
+    }
+
+    /**
+     * Complete executors of stage in order of chain, blocks they transfer are queued before end of stream
+     * @throws IOException
+     */
+    private void finish() throws IOException {
+      for (Executor ex : group)
+        ex.complete();
+      for (Link link : outputs)
+        link.finish();
+    }
+
+    /**
+     * Merge next blocks of the same link while total length is at most batch
+     * @param link
+     * @param first: first block, released if blocks are merged
+     * @return SharedBlock: merged block or first block
+     */
+    private SharedBlock merge(Link link, SharedBlock first) {
+      int total = first.length(), count = 0;
+      for (Link.Block next : queue) {
+        if (next.link != link || total + next.data.length() > batch)
+          break;
+        total += next.data.length();
+        count++;
+      }
+      if (count == 0)
+        return first;
+      Object array = first.isBytes() ? new byte[total] : new double[total];
+      first.copyTo(0, array, 0, first.length());
+      int off = first.length();
+      first.release();
+      for (int i = 0; i < count; i++) {
+        SharedBlock next = queue.poll().data;
+        pending -= next.length();
+        next.copyTo(0, array, off, next.length());
+        off += next.length();
+        next.release();
+      }
+      return new SharedBlock(array, total, null);
+    }
+  }
+
+  /**
+   * Input of first executor: pending tasks are run before every next block is read,
+   * so blocks of input do not pile up in queues
+   */
+  class DrainingInput implements BlockInput {
+    private final BlockInput input;
+
+    DrainingInput(BlockInput input) {
+      this.input = input;
+    }
+
+    @Override
+    public ByteBuffer nextBlock(int maxLen) throws IOException {
+      drain();
+      return input.nextBlock(maxLen);
+    }
+
+    @Override
+    public void close() throws IOException {
+      input.close();
+    }
+  }
+
+  /**
+   * Scheduler constructor
+   * @param groups: executors of every stage, fused chain shares one stage,
+   * first executor of first group reads input
+   * @param policy: order of stages
+   * @param batch: minimal number of elements coded at once, 0 for no batching
+   */
+  Scheduler(ArrayList<ArrayList<Executor>> groups, Policy policy, int batch) {
+    this.policy = policy;
+    this.batch = batch;
+    stages = new ArrayList<>();
+    stageMap = new HashMap<>();
+    for (ArrayList<Executor> group : groups) {
+      Stage stage = new Stage(group);
+      stages.add(stage);
+      for (Executor ex : group)
+        stageMap.put(ex, stage);
+    }
+  }
+
+  /**
+   * Wrap conveyor input for first executor
+   * @param input
+   * @return BlockInput: input running pending tasks before every block
+   */
+  BlockInput wrapInput(BlockInput input) {
+    return new DrainingInput(input);
+  }
+
+  /**
+   * Connect provider and consumer through link
+   * @param provider
+   * @param consumer
+   * @throws IOException
+   */
+  void connect(Executor provider, Executor consumer) throws IOException {
+    Stage target = stageMap.get(consumer);
+    Link link = new Link(target);
+    provider.setConsumer(link);
+    link.setConsumer(consumer);
+    stageMap.get(provider).outputs.add(link);
+    target.providers++;
+  }
+
+  /**
+   * Run first executor and all tasks it produces, source runs pending tasks after every block it produced.
+   * Every stage is completed once all its providers ended
+   * @throws IOException in case of error in any executor
+   */
+  void run() throws IOException {
+    Stage root = stages.get(0);
+    if (root.executor instanceof SourceExecutor)
+      ((SourceExecutor) root.executor).produce(this::drain);
+    else
+      root.executor.run();
+    root.finish();
+    drain();
+    for (Stage stage : stages)
+      if (!stage.queue.isEmpty() || stage.providers > 0)
+        throw new IOException("Scheduler stopped with unfinished stage of " + stage.executor.getClass().getSimpleName());
+  }
+
+  /**
+   * Run tasks until no stage has pending blocks
+   * @throws IOException
+   */
+  private void drain() throws IOException {
+    Stage stage;
+    while ((stage = policy.poll()) != null) {
+      stage.scheduled = false;
+      stage.step();
+      stage.schedule();
+    }
+  }
+}
@@ -0,0 +1,151 @@
+package transporter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+/**
+ * Graph of executors read from conveyor config: validation and search of linear chains.
+ * Executors are numbered from 0 in order of config, executor 0 reads conveyor input,
+ * the last one writes conveyor output
+ */
+class Topology {
+  private final int size;
+  private final ArrayList<ArrayList<Integer>> consumers; // Consumers of every executor
+  private final ArrayList<ArrayList<Integer>> providers; // Providers of every executor
+  private final ArrayList<Integer> order;                // Topological order
+
+  /**
+   * Topology constructor, graph is validated
+   * @param consumerIds: consumers of every executor as 1-based ids of config
+   * @throws IOException if graph is not a valid conveyor
+   */
+  Topology(ArrayList<ArrayList<Integer>> consumerIds) throws IOException {
+    size = consumerIds.size();
+    consumers = new ArrayList<>();
+    providers = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      consumers.add(new ArrayList<>());
+      providers.add(new ArrayList<>());
+    }
+    for (int i = 0; i < size; i++) {
+      for (int id : consumerIds.get(i)) {
+        int consumer = id - 1;
+        if (consumer < 0 || consumer >= size)
+          throw new IOException("Wrong transporter structure: executor " + (i + 1) + " has unknown consumer " + id);
+        if (consumer == i)
+          throw new IOException("Wrong transporter structure: executor " + id + " consumes itself");
+        if (consumers.get(i).contains(consumer))
+          throw new IOException("Wrong transporter structure: executor " + (i + 1) + " has consumer " + id + " twice");
+        consumers.get(i).add(consumer);
+        providers.get(consumer).add(i);
+      }
+    }
+    order = sort();
+    validate();
+  }
+
+  /**
+   * Sort executors topologically
+   * @return ArrayList<Integer>: executors in order, providers before consumers
+   * @throws IOException if graph has cycle
+   */
+  private ArrayList<Integer> sort() throws IOException {
+    int[] inDegree = new int[size];
+    ArrayDeque<Integer> ready = new ArrayDeque<>();
+    for (int i = 0; i < size; i++) {
+      inDegree[i] = providers.get(i).size();
+      if (inDegree[i] == 0)
+        ready.add(i);
+    }
+    ArrayList<Integer> sorted = new ArrayList<>();
+    while (!ready.isEmpty()) {
+      int cur = ready.poll();
+      sorted.add(cur);
+      for (int consumer : consumers.get(cur))
+        if (--inDegree[consumer] == 0)
+          ready.add(consumer);
+    }
+    if (sorted.size() != size)
+      throw new IOException("Wrong transporter structure: executors form a cycle");
+    return sorted;
+  }
+
+  /**
+   * Check that data flows from the first executor to the last one
+   * @throws IOException if some executor gets no data or its output is lost
+   */
+  private void validate() throws IOException {
+    for (int i = 0; i < size; i++) {
+      if (i == 0 && !providers.get(i).isEmpty())
+        throw new IOException("Wrong transporter structure: executor 1 reads input and can't have providers");
+      if (i != 0 && providers.get(i).isEmpty())
+        throw new IOException("Wrong transporter structure: executor " + (i + 1) + " has no providers");
+      if (i == size - 1 && !consumers.get(i).isEmpty())
+        throw new IOException("Wrong transporter structure: executor " + (i + 1) + " writes output and can't have consumers");
+      if (i != size - 1 && consumers.get(i).isEmpty())
+        throw new IOException("Wrong transporter structure: executor " + (i + 1) + " has no consumers");
+    }
+  }
+
+  /**
+   * Get executors in topological order
+   * @return ArrayList<Integer>: executors, providers before consumers
+   */
+  ArrayList<Integer> order() {
+    return order;
+  }
+
+  /**
+   * Find executor merging blocks of several providers
+   * @return int: first such executor, -1 if every executor has at most one provider
+   */
+  int firstMerge() {
+    for (int i = 0; i < size; i++)
+      if (providers.get(i).size() > 1)
+        return i;
+    return -1;
+  }
+
+  /**
+   * Get consumers of executor
+   * @param executor
+   * @return ArrayList<Integer>: consumers
+   */
+  ArrayList<Integer> getConsumers(int executor) {
+    return consumers.get(executor);
+  }
+
+  /**
+   * Check if edge can be fused: provider has the only consumer, consumer has the only provider
+   * @param provider
+   * @param consumer
+   * @return boolean: true if edge is inside linear chain
+   */
+  boolean isLinear(int provider, int consumer) {
+    return consumers.get(provider).size() == 1 && consumers.get(provider).get(0) == consumer
+        && providers.get(consumer).size() == 1;
+  }
+
+  /**
+   * Split graph into maximal linear chains, executor with several consumers or providers
+   * ends or starts chain
+   * @return ArrayList<ArrayList<Integer>>: chains in topological order of their heads, chain of executor 0 first
+   */
+  ArrayList<ArrayList<Integer>> chains() {
+    ArrayList<ArrayList<Integer>> result = new ArrayList<>();
+    for (int head : order) {
+      if (providers.get(head).size() == 1 && isLinear(providers.get(head).get(0), head))
+        continue;
+      ArrayList<Integer> chain = new ArrayList<>();
+      chain.add(head);
+      int cur = head;
+      while (consumers.get(cur).size() == 1 && isLinear(cur, consumers.get(cur).get(0))) {
+        cur = consumers.get(cur).get(0);
+        chain.add(cur);
+      }
+      result.add(chain);
+    }
+    return result;
+  }
+}
@@ -1,37 +1,169 @@
 package transporter;
 
+import executer.AbstractExecutor;
 import executer.Executor;
+import executer.ExecutorProvider;
+import executer.ExecutorRegistry;
+import executer.SourceExecutor;
 import logger.Logger;
-import encoder.Encoder;
+import io.BlockInput;
+import io.ChannelOutput;
+import io.ContainerIndex;
+import io.ContainerOutput;
+import io.FrameInput;
+import io.FramedInput;
+import io.FrameOutput;
+import io.MappedInput;
+import io.StreamInput;
+import metrics.ExecutorMetrics;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Conveyor of executors
  */
 public class Transporter {
   private static final String splitDelim = " |:|="; // Delimiter in config file
+  private static final String defaultExecutorType = "arithmetic"; // Executor type of config without 'type' directive
+  private static final String stdStream = "-";      // Name of standard input or output in place of file
   private ArrayList<Executor> exs;                  // Array of all executors in conveyor
-  private DataInputStream inputFile;
+  private ArrayList<Integer> order;                 // Indices of executors in topological order
+  private BlockInput inputFile;
   private String inputFileName;
-  private DataOutputStream outputFile;
+  private ChannelOutput outputFile;
   private Map<Executor, ArrayList<Integer>> executorConsumer; // Array of executors to their consumers (array of indices in 'exs')
+  private modeTypes mode = modeTypes.DIRECT;
+  private int queueSize = 4;                        // Capacity of stage queues in blocks for pipeline mode
+  private Pipeline pipeline;
+  private policyTypes policy = policyTypes.DEPTH;   // Order of stages in scheduled mode
+  private int batch;                                // Minimal number of elements per code(...) in scheduled mode
+  private Scheduler scheduler;
+  private static final int maxFusedChain = 16;      // Longer chains are split, fused calls are nested on stack
+  private fusionTypes fusion = fusionTypes.AUTO;
+  private boolean metricsSummary;                   // Log metrics of every executor when conveyor finishes
+  private final ArrayList<ObjectName> mbeanNames;   // Registered metrics of executors
+  private static final AtomicInteger conveyorCount = new AtomicInteger(); // Numbers conveyors for MBean names
+  private containerTypes inputContainer = containerTypes.PLAIN;
+  private containerTypes outputContainer = containerTypes.PLAIN;
+  private long extractFrom, extractTo = -1;         // Range of original data decoded from indexed input, -1 for the end
+  private int workers = Runtime.getRuntime().availableProcessors(); // Conveyors decoding the whole indexed input
+  private FileChannel containerChannel, frameChannel; // Indexed input and its decoded output, shared with decoders
+  private final ArrayList<Transporter> decoders;    // Conveyors decoding other frames of indexed input in parallel
 
   /**
    * Types of params in config
    */
   private enum valTypes {
-    EXECUTOR
+    EXECUTOR,
+    MODE,
+    QUEUE,
+    METRICS,
+    FUSION,
+    POLICY,
+    BATCH,
+    INPUT,
+    OUTPUT,
+    EXTRACT,
+    WORKERS
   }
 
-  private static final Map<String, valTypes> mapTypes; // Map of params name to types of params
+  /**
+   * Execution modes of conveyor
+   */
+  private enum modeTypes {
+    DIRECT,    // default: all executors run on caller thread, blocks are pushed synchronously
+    SCHEDULED, // all executors run on caller thread, blocks go through work queues of scheduler
+    PIPELINE   // every executor runs on its own thread, blocks go through bounded queues, executors with several providers are rejected
+  }
+
+  /**
+   * Policies of scheduled mode
+   */
+  private enum policyTypes {
+    DEPTH, // consumers of block run before next blocks of other stages, same order as direct mode
+    FIFO   // stages run in order they got blocks
+  }
+
+  /**
+   * Fusion of linear chains of executors
+   */
+  private enum fusionTypes {
+    AUTO, // fuse in direct and scheduled modes, pipeline keeps a thread per executor
+    ON,
+    OFF
+  }
+
+  /**
+   * Output of executor metrics, MBeans are registered in any case
+   */
+  private enum metricsTypes {
+    NONE,
+    SUMMARY   // log summary of every executor at the end of run
+  }
+
+  /**
+   * Formats of conveyor input and output
+   */
+  private enum containerTypes {
+    PLAIN,  // flat stream of coded blocks
+    INDEXED // frames of coded blocks with index in footer, see io.ContainerIndex
+  }
+
+  private static final Map<String, valTypes> mapTypes;   // Map of params name to types of params
+  private static final Map<String, modeTypes> modeMap;   // Map of mode name to mode type
+  private static final Map<String, metricsTypes> metricsMap;   // Map of metrics name to metrics type
+  private static final Map<String, fusionTypes> fusionMap;     // Map of fusion name to fusion type
+  private static final Map<String, policyTypes> policyMap;     // Map of policy name to policy type
+  private static final Map<String, containerTypes> containerMap; // Map of container name to container type
 
   static {
     mapTypes = new HashMap<>();
     mapTypes.put("executor", valTypes.EXECUTOR);
+    mapTypes.put("mode", valTypes.MODE);
+    mapTypes.put("queue", valTypes.QUEUE);
+    mapTypes.put("metrics", valTypes.METRICS);
+    mapTypes.put("fusion", valTypes.FUSION);
+    mapTypes.put("policy", valTypes.POLICY);
+    mapTypes.put("batch", valTypes.BATCH);
+    mapTypes.put("input", valTypes.INPUT);
+    mapTypes.put("output", valTypes.OUTPUT);
+    mapTypes.put("extract", valTypes.EXTRACT);
+    mapTypes.put("workers", valTypes.WORKERS);
+
+    modeMap = new HashMap<>();
+    modeMap.put("direct", modeTypes.DIRECT);
+    modeMap.put("scheduled", modeTypes.SCHEDULED);
+    modeMap.put("pipeline", modeTypes.PIPELINE);
+
+
+    metricsMap = new HashMap<>();
+    metricsMap.put("none", metricsTypes.NONE);
+    metricsMap.put("summary", metricsTypes.SUMMARY);
+
+    fusionMap = new HashMap<>();
+    fusionMap.put("auto", fusionTypes.AUTO);
+    fusionMap.put("on", fusionTypes.ON);
+    fusionMap.put("off", fusionTypes.OFF);
+
+    policyMap = new HashMap<>();
+    policyMap.put("depth", policyTypes.DEPTH);
+    policyMap.put("fifo", policyTypes.FIFO);
+
+    containerMap = new HashMap<>();
+    containerMap.put("plain", containerTypes.PLAIN);
+    containerMap.put("indexed", containerTypes.INDEXED);
   }
 
   /**
@@ -42,15 +174,102 @@ public class Transporter {
    * @throws IOException
    */
   public Transporter(String inFile, String outFile, String confFile) throws IOException {
-    inputFile = new DataInputStream(new FileInputStream(inFile));
     inputFileName = inFile;
-    outputFile = new DataOutputStream(new FileOutputStream(outFile));
     exs = new ArrayList<>();
     executorConsumer = new HashMap<>();
+    mbeanNames = new ArrayList<>();
+    decoders = new ArrayList<>();
+    try {
+      setConfigs(confFile);
+      if (exs.isEmpty())
+        throw new IOException("Empty list of executors");
+      // frames of container are blocks of input, all data coded from block must be written before the next one is read
+      for (int i = 1; i < exs.size(); i++)
+        if (exs.get(i) instanceof SourceExecutor)
+          throw new IOException("Wrong transporter structure: executor " + (i + 1) + " produces its own data and can't have providers in file: " + confFile);
+      if (outputContainer == containerTypes.INDEXED && (mode == modeTypes.PIPELINE || batch > 0))
+        throw new IOException("Indexed output needs direct or scheduled mode without batch in file: " + confFile);
+      if (outputContainer == containerTypes.INDEXED && exs.get(0) instanceof SourceExecutor)
+        throw new IOException("Indexed output needs conveyor input, executor 1 produces its own data in file: " + confFile);
+      if (inputContainer == containerTypes.INDEXED) {
+        openContainer(inFile, outFile, confFile);
+      } else {
+        inputFile = stdStream.equals(inFile) ? StreamInput.fromStdin() : new MappedInput(inFile);
+        if (stdStream.equals(outFile))
+          outputFile = outputContainer == containerTypes.INDEXED ? ContainerOutput.toStdout() : ChannelOutput.toStdout();
+        else
+          outputFile = outputContainer == containerTypes.INDEXED ? ContainerOutput.toFile(outFile) : ChannelOutput.toFile(outFile);
+      }
+      introduce();
+    } catch (IOException | RuntimeException ex) {
+      for (Transporter decoder : decoders)
+        decoder.finishMetrics();
+      closeFiles();
+      closeChannels();
+      throw ex;
+    }
+    registerMetrics();
+  }
+
+  /**
+   * Conveyor decoding part of indexed input in parallel with its owner
+   * @param inFile
+   * @param confFile
+   * @param input: frames of the part
+   * @param output: output shared with owner
+   * @throws IOException
+   */
+  private Transporter(String inFile, String confFile, FrameInput input, FrameOutput output) throws IOException {
+    inputFileName = inFile;
+    inputFile = input;
+    outputFile = output;
+    exs = new ArrayList<>();
+    executorConsumer = new HashMap<>();
+    mbeanNames = new ArrayList<>();
+    decoders = new ArrayList<>();
     setConfigs(confFile);
-    if (exs.isEmpty())
-      throw new IOException("Empty list of executors");
     introduce();
+    registerMetrics();
+  }
+
+  /**
+   * Open indexed input for decoding. Frames covering extracted range are decoded by this conveyor,
+   * the whole container is split between several conveyors writing to the same output file
+   * @param inFile
+   * @param outFile
+   * @param confFile
+   * @throws IOException in case of wrong container or range
+   */
+  private void openContainer(String inFile, String outFile, String confFile) throws IOException {
+    if (mode == modeTypes.PIPELINE)
+      throw new IOException("Indexed input needs direct or scheduled mode in file: " + confFile);
+    if (stdStream.equals(inFile) || stdStream.equals(outFile))
+      throw new IOException("Indexed input needs seekable files, standard input or output given in file: " + confFile);
+    containerChannel = FileChannel.open(Paths.get(inFile), StandardOpenOption.READ);
+    frameChannel = FileChannel.open(Paths.get(outFile), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    ContainerIndex index = ContainerIndex.read(containerChannel, inFile);
+    long size = index.originalSize();
+    long to = extractTo < 0 ? size : Math.min(extractTo, size);
+    if (extractFrom > to)
+      throw new IOException("Wrong range to extract: " + extractFrom + "-" + extractTo + ", container " + inFile + " has " + size + " bytes");
+
+    ArrayList<Integer> frames = index.cover(extractFrom, to);
+    int parts = extractFrom == 0 && to == size && !index.isDependent() ? Math.max(1, Math.min(workers, frames.size())) : 1;
+    Logger.writeLn("Decoding " + frames.size() + " of " + index.frames() + " frames by " + parts + " conveyors");
+    for (int i = 0; i < parts; i++) {
+      // every part starts with metadata frames, e.g. model header
+      ArrayList<Integer> part = index.prologue();
+      part.addAll(frames.subList(frames.size() * i / parts, frames.size() * (i + 1) / parts));
+      FrameOutput output = new FrameOutput(frameChannel, index, extractFrom, to);
+      FrameInput input = new FrameInput(containerChannel, index, part, output);
+      if (i == 0) {
+        inputFile = input;
+        outputFile = output;
+      } else {
+        decoders.add(new Transporter(inFile, confFile, input, output));
+      }
+    }
   }
 
   /**
@@ -70,7 +289,7 @@ public class Transporter {
         throw new IOException("Unknown config: " + words[0] + " in file: " + confFile + " at: " + line);
       switch (type) {
         case EXECUTOR: {
-          Executor newExecutor = new Encoder(inputFileName);
+          Executor newExecutor = createExecutor(words[1]);
           newExecutor.setConfigFile(words[1]);
           exs.add(newExecutor);
           ArrayList<Integer> consumersIds = new ArrayList();
@@ -80,38 +299,312 @@ public class Transporter {
           executorConsumer.put(newExecutor, consumersIds);
           break;
         }
+        case MODE: {
+          mode = modeMap.get(words[1]);
+          if (mode == null)
+            throw new IOException("Unknown mode: " + words[1] + " in file: " + confFile + " at: " + line + " direct|scheduled|pipeline expected");
+          break;
+        }
+        case QUEUE: {
+          queueSize = Integer.parseInt(words[1]);
+          if (queueSize < 1)
+            throw new IOException("Queue size must be positive in file: " + confFile + " at: " + line);
+          break;
+        }
+        case METRICS: {
+          metricsTypes mt = metricsMap.get(words[1]);
+          if (mt == null)
+            throw new IOException("Unknown metrics: " + words[1] + " in file: " + confFile + " at: " + line + " none|summary expected");
+          metricsSummary = mt == metricsTypes.SUMMARY;
+          break;
+        }
+        case FUSION: {
+          fusion = fusionMap.get(words[1]);
+          if (fusion == null)
+            throw new IOException("Unknown fusion: " + words[1] + " in file: " + confFile + " at: " + line + " auto|on|off expected");
+          break;
+        }
+        case POLICY: {
+          policy = policyMap.get(words[1]);
+          if (policy == null)
+            throw new IOException("Unknown policy: " + words[1] + " in file: " + confFile + " at: " + line + " depth|fifo expected");
+          break;
+        }
+        case BATCH: {
+          batch = Integer.parseInt(words[1]);
+          if (batch < 0)
+            throw new IOException("Batch size must not be negative in file: " + confFile + " at: " + line);
+          break;
+        }
+        case INPUT:
+        case OUTPUT: {
+          containerTypes ct = containerMap.get(words[1]);
+          if (ct == null)
+            throw new IOException("Unknown container: " + words[1] + " in file: " + confFile + " at: " + line + " plain|indexed expected");
+          if (type == valTypes.INPUT)
+            inputContainer = ct;
+          else
+            outputContainer = ct;
+          break;
+        }
+        case EXTRACT: {
+          if (words.length != 3)
+            throw new IOException("Wrong number of arguments in file: " + confFile + " at: " + line + " 'extract from to' expected");
+          extractFrom = Long.parseLong(words[1]);
+          extractTo = Long.parseLong(words[2]);
+          if (extractFrom < 0 || extractTo < extractFrom)
+            throw new IOException("Wrong range to extract in file: " + confFile + " at: " + line);
+          break;
+        }
+        case WORKERS: {
+          workers = Integer.parseInt(words[1]);
+          if (workers < 1)
+            throw new IOException("Number of workers must be positive in file: " + confFile + " at: " + line);
+          break;
+        }
+      }
+    }
+    configReader.close();
+  }
+
+  /**
+   * Create executor of type set by 'type' directive in its config file
+   * @param confFile: executor config file
+   * @return Executor: new executor, configs are not set yet
+   * @throws IOException
+   */
+  private Executor createExecutor(String confFile) throws IOException {
+    ExecutorProvider provider = ExecutorRegistry.get(defaultExecutorType);
+    BufferedReader configReader = new BufferedReader(new FileReader(confFile));
+    String line;
+    while ((line = configReader.readLine()) != null) {
+      String[] words = line.split(splitDelim);
+      if (words.length == 2 && words[0].equals("type")) {
+        provider = ExecutorRegistry.get(words[1]);
+        if (provider == null) {
+          configReader.close();
+          throw new IOException("Unknown executor type: " + words[1] + " in file: " + confFile + " at: " + line + " " + ExecutorRegistry.types() + " expected");
+        }
       }
     }
+    configReader.close();
+    if (provider == null)
+      throw new IOException("No provider of executor type: " + defaultExecutorType + " for file: " + confFile);
+    return provider.create(inputFileName);
   }
 
   /**
-   * Acquaint executors
+   * Acquaint executors: validate graph, fuse linear chains and connect the rest through adapters
    * @throws IOException
    */
   private void introduce() throws IOException {
-    exs.get(0).setInput(inputFile);
+    ArrayList<ArrayList<Integer>> consumerIds = new ArrayList<>();
+    for (Executor cur : exs)
+      consumerIds.add(executorConsumer.get(cur));
+    Topology topology = new Topology(consumerIds);
+    order = topology.order();
+    // merging stage takes blocks of its providers in order of their threads, output would differ from direct mode
+    int merge = topology.firstMerge();
+    if (mode == modeTypes.PIPELINE && merge >= 0)
+      throw new IOException("Pipeline mode needs executors with one provider, executor " + (merge + 1)
+          + " merges several providers, use direct or scheduled mode");
+    boolean fuse = fusion == fusionTypes.ON || (fusion == fusionTypes.AUTO && mode != modeTypes.PIPELINE);
 
-    for (Executor cur : exs) {
-      ArrayList<Integer> ids = executorConsumer.get(cur);
-      for (int id : ids) {
-        cur.setConsumer(exs.get(id - 1));
+    // groups of executors running as one: fused parts of linear chains
+    ArrayList<ArrayList<Executor>> groups = new ArrayList<>();
+    boolean[] fused = new boolean[exs.size()]; // edge from executor to its only consumer is fused
+    for (ArrayList<Integer> chain : topology.chains()) {
+      ArrayList<Executor> group = new ArrayList<>();
+      group.add(exs.get(chain.get(0)));
+      for (int i = 1; i < chain.size(); i++) {
+        Executor provider = exs.get(chain.get(i - 1)), consumer = exs.get(chain.get(i));
+        if (fuse && group.size() < maxFusedChain && provider instanceof AbstractExecutor
+            && consumer instanceof AbstractExecutor) {
+          ((AbstractExecutor) provider).fuse((AbstractExecutor) consumer);
+          fused[chain.get(i - 1)] = true;
+        } else {
+          groups.add(group);
+          group = new ArrayList<>();
+        }
+        group.add(consumer);
+      }
+      groups.add(group);
+    }
+    if (groups.size() < exs.size())
+      Logger.writeLn("Fused " + (exs.size() - groups.size()) + " links of linear chains");
+
+    if (mode == modeTypes.PIPELINE)
+      pipeline = new Pipeline(groups, queueSize);
+    if (mode == modeTypes.SCHEDULED)
+      scheduler = new Scheduler(groups, policy == policyTypes.FIFO ? new Scheduler.FifoPolicy() : new Scheduler.DepthFirstPolicy(), batch);
+    BlockInput input = scheduler != null ? scheduler.wrapInput(inputFile) : inputFile;
+    if (outputContainer == containerTypes.INDEXED)
+      input = new FramedInput(input, outputFile);
+    exs.get(0).setInput(input);
+
+    for (int cur = 0; cur < exs.size(); cur++) {
+      if (fused[cur])
+        continue;
+      for (int id : topology.getConsumers(cur)) {
+        if (pipeline != null)
+          pipeline.connect(exs.get(cur), exs.get(id));
+        else if (scheduler != null)
+          scheduler.connect(exs.get(cur), exs.get(id));
+        else
+          exs.get(cur).setConsumer(exs.get(id));
       }
     }
 
     exs.get(exs.size() - 1).setOutput(outputFile);
+    // frames of output can be decoded on their own only if no executor carries state between blocks
+    for (Executor ex : exs) {
+      if (ex.isStateful()) {
+        outputFile.setDependentFrames();
+        break;
+      }
+    }
+  }
+
+  /**
+   * Register metrics of executors as MBeans 'conveyor:type=Executor,conveyor=N,index=I,name=Class'
+   */
+  private void registerMetrics() {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    int conveyor = conveyorCount.incrementAndGet();
+    for (int i = 0; i < exs.size(); i++) {
+      ExecutorMetrics metrics = exs.get(i).getMetrics();
+      if (metrics == null)
+        continue;
+      try {
+        ObjectName name = new ObjectName("conveyor:type=Executor,conveyor=" + conveyor + ",index=" + (i + 1)
+            + ",name=" + exs.get(i).getClass().getSimpleName());
+        server.registerMBean(metrics, name);
+        mbeanNames.add(name);
+      } catch (JMException ex) {
+        Logger.writeErrorLn("Can't register metrics of executor " + (i + 1) + ": " + ex.getMessage());
+      }
+    }
   }
 
   /**
-   * Conveyor start function
+   * Log metrics summary and unregister MBeans
    */
-  public void run() {
+  private void finishMetrics() {
+    if (metricsSummary) {
+      for (int i = 0; i < exs.size(); i++) {
+        ExecutorMetrics metrics = exs.get(i).getMetrics();
+        if (metrics != null)
+          Logger.writeLn("Executor " + (i + 1) + " (" + exs.get(i).getClass().getSimpleName() + "): " + metrics.summary());
+      }
+    }
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    for (ObjectName name : mbeanNames) {
+      try {
+        server.unregisterMBean(name);
+      } catch (JMException ex) {
+        Logger.writeErrorLn("Can't unregister metrics: " + name);
+      }
+    }
+    mbeanNames.clear();
+  }
+
+  /**
+   * Conveyor start function, parallel decoders of indexed input run on their own threads
+   * @return boolean: true if conveyor and all decoders finished without errors
+   */
+  public boolean run() {
+    AtomicBoolean decoded = new AtomicBoolean(true);
+    ArrayList<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < decoders.size(); i++) {
+      Transporter decoder = decoders.get(i);
+      Thread thread = new Thread(() -> {
+        if (!decoder.runConveyor())
+          decoded.set(false);
+      }, "decoder-" + (i + 1));
+      thread.start();
+      threads.add(thread);
+    }
+    boolean succeeded = runConveyor();
+    try {
+      for (Thread thread : threads)
+        thread.join();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      Logger.writeErrorLn("Conveyer was interrupted");
+      succeeded = false;
+    }
+    closeChannels();
+    return succeeded && decoded.get();
+  }
+
+  /**
+   * Run executors of this conveyor, input and output are closed in any case
+   * @return boolean: true if conveyor finished without errors
+   */
+  private boolean runConveyor() {
+    boolean succeeded = false;
     try {
-      exs.get(0).run();
+      // scheduler and pipeline complete every stage before telling its consumers the end
+      if (pipeline != null) {
+        pipeline.run();
+      } else if (scheduler != null) {
+        scheduler.run();
+      } else {
+        exs.get(0).run();
+        for (int id : order)
+          exs.get(id).complete();
+      }
       inputFile.close();
       outputFile.close();
+      succeeded = true;
     } catch (IOException ex) {
       Logger.writeLn("Conveyer error! ");
       Logger.writeErrorLn(ex);
+    } catch (UncheckedIOException ex) {
+      // I/O error inside code(...) of executor, e.g. of remote link
+      Logger.writeLn("Conveyer error! ");
+      Logger.writeErrorLn(ex.getCause());
+    } catch (RuntimeException ex) {
+      // bug of executor, its conveyor fails alone, e.g. in batch or among decoders of indexed input
+      Logger.writeLn("Conveyer error! ");
+      Logger.writeErrorLn(ex.toString());
+    } finally {
+      if (!succeeded)
+        closeFiles();
+      finishMetrics();
+    }
+    return succeeded;
+  }
+
+  /**
+   * Close input and output after error, errors of closing are ignored
+   */
+  private void closeFiles() {
+    try {
+      if (inputFile != null)
+        inputFile.close();
+    } catch (IOException ignored) {
+    }
+    try {
+      if (outputFile != null)
+        outputFile.close();
+    } catch (IOException ignored) {
+    }
+  }
+
+  /**
+   * Close channels of indexed input and its output shared with decoders
+   */
+  private void closeChannels() {
+    try {
+      if (containerChannel != null)
+        containerChannel.close();
+    } catch (IOException ignored) {
+    }
+    try {
+      if (frameChannel != null)
+        frameChannel.close();
+    } catch (IOException ignored) {
     }
   }
 }
@@ -0,0 +1,109 @@
+package encoder;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Kernels.Vector on jdk.incubator.vector, loaded by Kernels through reflection.
+ * Every lane does the same operations in the same order as scalar loop, so results are bit-identical
+ */
+final class VectorKernels implements Kernels.Vector {
+  private static final VectorSpecies<Double> doubles = DoubleVector.SPECIES_PREFERRED;
+  private static final VectorSpecies<Integer> ints = IntVector.SPECIES_PREFERRED;
+  private static final int minIntLanes = 8;   // Byte vector of int lanes must be at least 64 bits
+  private static final int minDoubleLanes = 4;
+  // ends of segments of letters of every lane, left ends first, reused by all calls of the thread
+  private static final ThreadLocal<double[]> laneEnds = ThreadLocal.withInitial(() -> new double[2 * doubles.length()]);
+  // letters of group of sequences, grown to the longest group of the thread
+  private static final ThreadLocal<byte[]> groupLetters = ThreadLocal.withInitial(() -> new byte[0]);
+
+  @Override
+  public boolean isSupported() {
+    return ints.length() >= minIntLanes && doubles.length() >= minDoubleLanes;
+  }
+
+  @Override
+  public String describe() {
+    return doubles.vectorBitSize() + " bits, " + doubles.length() + " doubles, " + ints.length() + " ints";
+  }
+
+  /**
+   * Count letters: every lane has its own table, so lanes with equal letters do not collide
+   * in gather and scatter of counters
+   */
+  @Override
+  public void count(byte[] data, int off, int len, long[][] tables) {
+    int lanes = ints.length();
+    VectorSpecies<Byte> bytes = VectorSpecies.of(byte.class, VectorShape.forBitSize(lanes * Byte.SIZE));
+    // counters of lane k are at k * 256, every counter holds at most len / lanes, so int never overflows
+    int[] counters = new int[lanes * 256];
+    int[] index = new int[lanes];
+    IntVector base = IntVector.fromArray(ints, laneBases(lanes), 0);
+    int i = off, end = off + len;
+    for (; i + lanes <= end; i += lanes) {
+      IntVector letters = (IntVector) ByteVector.fromArray(bytes, data, i).castShape(ints, 0);
+      letters.and(0xFF).add(base).intoArray(index, 0);
+      IntVector.fromArray(ints, counters, 0, index, 0).add(1).intoArray(counters, 0, index, 0);
+    }
+    long[] c0 = tables[0];
+    for (int k = 0; k < lanes; k++)
+      for (int s = 0; s < 256; s++)
+        c0[s] += counters[k * 256 + s];
+    for (; i < end; i++)
+      c0[data[i] & 0xFF]++;
+  }
+
+  private static int[] laneBases(int lanes) {
+    int[] bases = new int[lanes];
+    for (int k = 0; k < lanes; k++)
+      bases[k] = k * 256;
+    return bases;
+  }
+
+  /**
+   * Encode groups of as many sequences as vector has lanes. Groups stop at incomplete sequence
+   * at the end of block, scalar loop codes the rest.
+   * Letters of group are copied from block at once, blocks are mostly slices of mapped file.
+   * Letters of lanes are strided by numSeq, so ends of their segments are copied into one reused array
+   * and loaded as two vectors, it is faster than two gathers by int index
+   */
+  @Override
+  public int encode(ByteBuffer data, int dataLen, int numSeq, Segments segs, double[] probability,
+                    double[] out, int from, int to) {
+    int lanes = doubles.length();
+    double[] ends = laneEnds.get();
+    byte[] letters = groupLetters.get();
+    if (letters.length < lanes * numSeq) {
+      letters = new byte[lanes * numSeq];
+      groupLetters.set(letters);
+    }
+    double[] letterLeft = segs.letterLeft, letterRight = segs.letterRight;
+    DoubleVector zero = DoubleVector.zero(doubles), one = DoubleVector.broadcast(doubles, 1);
+    int i = from;
+    for (; i + lanes <= to && (long) (i + lanes) * numSeq <= dataLen; i += lanes) {
+      DoubleVector left = zero, right = one;
+      data.get(i * numSeq, letters, 0, lanes * numSeq);
+      for (int j = 0; j < numSeq; j++) {
+        for (int k = 0, pos = j; k < lanes; k++, pos += numSeq) {
+          int ch = letters[pos] & 0xFF;
+          if (probability[ch] <= 0)
+            throw Encoder.missingLetter(ch);
+          ends[k] = letterLeft[ch];
+          ends[lanes + k] = letterRight[ch];
+        }
+        DoubleVector width = right.sub(left);
+        DoubleVector newR = left.add(width.mul(DoubleVector.fromArray(doubles, ends, lanes)));
+        DoubleVector newL = left.add(width.mul(DoubleVector.fromArray(doubles, ends, 0)));
+        right = newR;
+        left = newL;
+      }
+      left.add(right).div(2).intoArray(out, i);
+    }
+    return i;
+  }
+}